@@ -0,0 +1,41 @@
+package com.certificate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a batch generation run: generated certificates plus per-row failures
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGenerationResult {
+
+    private int totalRequested;
+
+    @Builder.Default
+    private List<CertificateResponse> certificates = new ArrayList<>();
+
+    @Builder.Default
+    private List<Failure> failures = new ArrayList<>();
+
+    /**
+     * A single row that could not be generated
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+        private int rowNumber;
+        private String recipientName;
+        private String recipientEmail;
+        private String error;
+    }
+}
@@ -1,87 +1,107 @@
 package com.certificate.service;
 
 import com.certificate.dto.CertificateRequest;
+import com.certificate.dto.ImportReport;
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+
+import javax.xml.parsers.ParserConfigurationException;
 
 /**
  * Batch Import Service for CSV/Excel files
  * Functionality #3: Recipient & Data Management - Batch Import
+ *
+ * The column layout and date format are inferred once per file from the header and the first
+ * {@link ImportSchema#SAMPLE_ROWS} rows; every row is then parsed without exceptions.
+ * Rows with a missing name or course, an invalid email or an unrecognised date are rejected
+ * and described in the {@link ImportReport}; a blank date means the date of issue.
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class BatchImportService {
 
-    private static final DateTimeFormatter[] DATE_FORMATTERS = {
-        DateTimeFormatter.ofPattern("yyyy-MM-dd"),
-        DateTimeFormatter.ofPattern("MM/dd/yyyy"),
-        DateTimeFormatter.ofPattern("dd/MM/yyyy"),
-        DateTimeFormatter.ofPattern("MMMM dd, yyyy")
-    };
+    private static final String CSV = "csv";
+    private static final String EXCEL = "excel";
+
+    /** Rows per Flight Recorder import chunk event */
+    private static final int PROFILE_CHUNK_ROWS = 500;
+
+    /** Row errors kept in a report; later ones are only counted */
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final IssuanceMetrics metrics;
 
     /**
      * Import certificates from CSV file
      */
     public List<CertificateRequest> importFromCsv(MultipartFile file) throws IOException, CsvException {
         log.info("Importing certificates from CSV file: {}", file.getOriginalFilename());
-        
+
         List<CertificateRequest> requests = new ArrayList<>();
+        ImportReport report = streamCsv(file.getInputStream(), requests::add);
 
-        try (CSVReader reader = new CSVReader(new InputStreamReader(file.getInputStream()))) {
-            List<String[]> rows = reader.readAll();
-            
-            if (rows.isEmpty()) {
-                throw new IllegalArgumentException("CSV file is empty");
-            }
+        logReport(report);
+        return requests;
+    }
+
+    /**
+     * Parse CSV row by row, handing each request to the consumer as soon as it is read.
+     * Only the schema sample and the current row are held in memory, so the consumer can start
+     * generating (and apply backpressure) while the rest of the file is still being parsed.
+     *
+     * @return the inferred schema, row counts and rejected rows
+     */
+    public ImportReport streamCsv(InputStream input, Consumer<CertificateRequest> consumer) throws IOException, CsvException {
+        ImportRun run = new ImportRun(CSV, consumer);
 
+        try (CSVReader reader = new CSVReader(new InputStreamReader(input))) {
             // First row is header
-            String[] headers = rows.get(0);
-            int nameIndex = findColumnIndex(headers, "name", "recipient_name", "recipient");
-            int emailIndex = findColumnIndex(headers, "email", "recipient_email");
-            int courseIndex = findColumnIndex(headers, "course", "course_name");
-            int achievementIndex = findColumnIndex(headers, "achievement", "achievement_title", "title");
-            int dateIndex = findColumnIndex(headers, "date", "completion_date", "completed_on");
-            int issuerIndex = findColumnIndex(headers, "issuer", "issuer_name");
-            int instructorIndex = findColumnIndex(headers, "instructor", "instructor_name");
+            String[] headers = reader.readNext();
+            if (headers == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            run.header(headers);
 
             // Process data rows
-            for (int i = 1; i < rows.size(); i++) {
-                String[] row = rows.get(i);
-                
-                if (row.length == 0 || row[0] == null || row[0].trim().isEmpty()) {
-                    continue; // Skip empty rows
-                }
-
-                CertificateRequest request = CertificateRequest.builder()
-                    .recipientName(getValueOrNull(row, nameIndex))
-                    .recipientEmail(getValueOrNull(row, emailIndex))
-                    .courseName(getValueOrNull(row, courseIndex))
-                    .achievementTitle(getValueOrNull(row, achievementIndex))
-                    .completionDate(parseDate(getValueOrNull(row, dateIndex)))
-                    .issuerName(getValueOrNull(row, issuerIndex))
-                    .instructorName(getValueOrNull(row, instructorIndex))
-                    .sendEmail(emailIndex >= 0 && row.length > emailIndex && !row[emailIndex].trim().isEmpty())
-                    .build();
-
-                requests.add(request);
+            String[] row;
+            int rowNumber = 0;
+            while ((row = reader.readNext()) != null) {
+                run.row(++rowNumber, row);
             }
         }
 
-        log.info("Imported {} certificate requests from CSV", requests.size());
-        return requests;
+        return run.finish();
     }
 
     /**
@@ -89,151 +109,366 @@ public class BatchImportService {
      */
     public List<CertificateRequest> importFromExcel(MultipartFile file) throws IOException {
         log.info("Importing certificates from Excel file: {}", file.getOriginalFilename());
-        
+
         List<CertificateRequest> requests = new ArrayList<>();
+        ImportReport report = streamExcel(file.getInputStream(), requests::add);
+
+        logReport(report);
+        return requests;
+    }
+
+    /**
+     * Parse the first sheet of an .xlsx stream row by row
+     *
+     * @return the inferred schema, row counts and rejected rows
+     */
+    public ImportReport streamExcel(InputStream input, Consumer<CertificateRequest> consumer) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(input)) {
+            return streamExcel(pkg, consumer);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Invalid Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parse the first sheet of an .xlsx file row by row.
+     * Reading from a file lets POI access the zip entries directly instead of buffering the upload.
+     *
+     * @return the inferred schema, row counts and rejected rows
+     */
+    public ImportReport streamExcel(Path file, Consumer<CertificateRequest> consumer) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            return streamExcel(pkg, consumer);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Invalid Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Event-based (SAX) sheet parsing: only the current row is materialised,
+     * instead of the full XSSFWorkbook object model.
+     */
+    private ImportReport streamExcel(OPCPackage pkg, Consumer<CertificateRequest> consumer) throws IOException {
+        try {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            ExcelRowHandler rowHandler = new ExcelRowHandler(new ImportRun(EXCEL, consumer));
 
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            
-            if (sheet.getPhysicalNumberOfRows() == 0) {
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            if (!sheets.hasNext()) {
                 throw new IllegalArgumentException("Excel file is empty");
             }
 
-            // Get header row
-            Row headerRow = sheet.getRow(0);
-            int nameIndex = findColumnIndex(headerRow, "name", "recipient_name", "recipient");
-            int emailIndex = findColumnIndex(headerRow, "email", "recipient_email");
-            int courseIndex = findColumnIndex(headerRow, "course", "course_name");
-            int achievementIndex = findColumnIndex(headerRow, "achievement", "achievement_title", "title");
-            int dateIndex = findColumnIndex(headerRow, "date", "completion_date", "completed_on");
-            int issuerIndex = findColumnIndex(headerRow, "issuer", "issuer_name");
-            int instructorIndex = findColumnIndex(headerRow, "instructor", "instructor_name");
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                    xssfReader.getStylesTable(), sharedStrings, rowHandler, new ImportDataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
 
-            // Process data rows
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
+            if (!rowHandler.headerSeen) {
+                throw new IllegalArgumentException("Excel file is empty");
+            }
+            return rowHandler.run.finish();
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to read Excel file: " + e.getMessage(), e);
+        }
+    }
 
-                String name = getCellValueAsString(row, nameIndex);
-                if (name == null || name.trim().isEmpty()) {
-                    continue; // Skip rows without name
-                }
+    /**
+     * Collects the cells of each sheet row and passes them on to the import run.
+     * The first row is the header; columns are matched with the same aliases as CSV.
+     */
+    private static class ExcelRowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
 
-                CertificateRequest request = CertificateRequest.builder()
-                    .recipientName(name)
-                    .recipientEmail(getCellValueAsString(row, emailIndex))
-                    .courseName(getCellValueAsString(row, courseIndex))
-                    .achievementTitle(getCellValueAsString(row, achievementIndex))
-                    .completionDate(parseDate(getCellValueAsString(row, dateIndex)))
-                    .issuerName(getCellValueAsString(row, issuerIndex))
-                    .instructorName(getCellValueAsString(row, instructorIndex))
-                    .sendEmail(emailIndex >= 0 && getCellValueAsString(row, emailIndex) != null)
-                    .build();
+        private final ImportRun run;
+        private final List<String> cells = new ArrayList<>();
+        private boolean headerSeen;
 
-                requests.add(request);
+        ExcelRowHandler(ImportRun run) {
+            this.run = run;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = new CellReference(cellReference).getCol();
+            while (cells.size() <= column) {
+                cells.add("");
             }
+            cells.set(column, formattedValue != null ? formattedValue : "");
         }
 
-        log.info("Imported {} certificate requests from Excel", requests.size());
-        return requests;
+        @Override
+        public void endRow(int rowNum) {
+            String[] row = cells.toArray(new String[0]);
+
+            if (!headerSeen) {
+                headerSeen = true;
+                run.header(row);
+                return;
+            }
+
+            // Sheet rows are zero-based with the header first, so rowNum is already the data row number
+            run.row(rowNum, row);
+        }
     }
 
     /**
-     * Find column index by multiple possible header names
+     * Turns the rows of one file into requests.
+     * The first rows are held back until the schema has been inferred from them; after that,
+     * each row is validated and either handed to the consumer or recorded in the report.
      */
-    private int findColumnIndex(String[] headers, String... possibleNames) {
-        for (int i = 0; i < headers.length; i++) {
-            String header = headers[i].toLowerCase().trim();
-            for (String name : possibleNames) {
-                if (header.equals(name.toLowerCase()) || header.contains(name.toLowerCase())) {
-                    return i;
+    private class ImportRun {
+
+        private final String format;
+        private final Consumer<CertificateRequest> consumer;
+        private final RowTracker tracker;
+        private final ImportReport report;
+
+        private String[] headers;
+        private List<Row> sample = new ArrayList<>();
+        private ImportSchema schema;
+
+        ImportRun(String format, Consumer<CertificateRequest> consumer) {
+            this.format = format;
+            this.consumer = consumer;
+            this.tracker = new RowTracker(format);
+            this.report = ImportReport.builder().format(format).build();
+        }
+
+        void header(String[] headers) {
+            this.headers = headers;
+        }
+
+        void row(int rowNumber, String[] cells) {
+            if (schema != null) {
+                accept(rowNumber, cells);
+                return;
+            }
+            sample.add(new Row(rowNumber, cells));
+            if (sample.size() == ImportSchema.SAMPLE_ROWS) {
+                inferSchema();
+            }
+        }
+
+        ImportReport finish() {
+            if (schema == null) {
+                inferSchema();
+            }
+            tracker.finish();
+            return report;
+        }
+
+        private void inferSchema() {
+            schema = ImportSchema.infer(headers, sample.stream().map(Row::cells).toList());
+            report.setDateFormat(schema.dateFormat.getPattern());
+            report.setColumns(schema.describeColumns());
+            List<Row> held = sample;
+            sample = null;
+            held.forEach(row -> accept(row.number(), row.cells()));
+        }
+
+        private void accept(int rowNumber, String[] row) {
+            report.setRowsRead(report.getRowsRead() + 1);
+            if (isBlank(row)) {
+                report.setRowsSkipped(report.getRowsSkipped() + 1);
+                tracker.skipped(rowNumber);
+                return; // Skip empty rows
+            }
+
+            List<ImportReport.RowError> problems = null;
+            String name = ImportSchema.valueOrNull(row, schema.nameIndex);
+            if (name == null) {
+                problems = problem(problems, rowNumber, "name", null, "Recipient name is missing");
+            }
+            String course = ImportSchema.valueOrNull(row, schema.courseIndex);
+            if (course == null) {
+                problems = problem(problems, rowNumber, "course", null, "Course name is missing");
+            }
+            String email = ImportSchema.valueOrNull(row, schema.emailIndex);
+            if (email != null && !ImportSchema.looksLikeEmail(email)) {
+                problems = problem(problems, rowNumber, "email", email, "Not a valid email address");
+            }
+            String dateValue = ImportSchema.valueOrNull(row, schema.dateIndex);
+            LocalDate completionDate = dateValue != null ? schema.parseDate(dateValue) : null;
+            if (dateValue != null && completionDate == null) {
+                metrics.importError("date");
+                problems = problem(problems, rowNumber, "date", dateValue,
+                    "Not a date; expected " + schema.dateFormat.getPattern());
+            }
+
+            if (problems != null) {
+                reject(rowNumber, problems);
+                return;
+            }
+
+            CertificateRequest request = CertificateRequest.builder()
+                .recipientName(name)
+                .recipientEmail(email)
+                .courseName(course)
+                .achievementTitle(ImportSchema.valueOrNull(row, schema.achievementIndex))
+                .completionDate(completionDate)
+                .issuerName(ImportSchema.valueOrNull(row, schema.issuerIndex))
+                .instructorName(ImportSchema.valueOrNull(row, schema.instructorIndex))
+                .sendEmail(email != null)
+                .build();
+
+            report.setRowsAccepted(report.getRowsAccepted() + 1);
+            tracker.parsed(rowNumber, consumer, request);
+        }
+
+        private List<ImportReport.RowError> problem(List<ImportReport.RowError> problems, int rowNumber,
+                                                    String column, String value, String message) {
+            List<ImportReport.RowError> result = problems != null ? problems : new ArrayList<>(2);
+            result.add(ImportReport.RowError.builder()
+                .rowNumber(rowNumber)
+                .column(column)
+                .value(value)
+                .message(message)
+                .build());
+            return result;
+        }
+
+        private void reject(int rowNumber, List<ImportReport.RowError> problems) {
+            report.setRowsRejected(report.getRowsRejected() + 1);
+            tracker.rejected(rowNumber);
+            for (ImportReport.RowError problem : problems) {
+                if (report.getErrors().size() == MAX_REPORTED_ERRORS) {
+                    report.setErrorsTruncated(true);
+                    break;
                 }
+                report.getErrors().add(problem);
             }
         }
-        return -1;
-    }
 
-    /**
-     * Find column index in Excel row
-     */
-    private int findColumnIndex(Row headerRow, String... possibleNames) {
-        if (headerRow == null) return -1;
-        
-        for (int i = 0; i < headerRow.getLastCellNum(); i++) {
-            Cell cell = headerRow.getCell(i);
-            if (cell == null) continue;
-            
-            String header = cell.getStringCellValue().toLowerCase().trim();
-            for (String name : possibleNames) {
-                if (header.equals(name.toLowerCase()) || header.contains(name.toLowerCase())) {
-                    return i;
+        private boolean isBlank(String[] row) {
+            for (String cell : row) {
+                if (cell != null && !cell.isBlank()) {
+                    return false;
                 }
             }
+            return true;
         }
-        return -1;
     }
 
-    /**
-     * Get value from array safely
-     */
-    private String getValueOrNull(String[] row, int index) {
-        if (index >= 0 && index < row.length) {
-            String value = row[index].trim();
-            return value.isEmpty() ? null : value;
-        }
-        return null;
+    private record Row(int number, String[] cells) {
     }
 
     /**
-     * Get cell value as string
+     * Counts imported rows in the metrics and reports them to Flight Recorder in chunks.
+     * The time spent in the consumer is only measured while the chunk event is enabled.
      */
-    private String getCellValueAsString(Row row, int columnIndex) {
-        if (columnIndex < 0) return null;
-        
-        Cell cell = row.getCell(columnIndex);
-        if (cell == null) return null;
-
-        return switch (cell.getCellType()) {
-            case STRING -> cell.getStringCellValue();
-            case NUMERIC -> {
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    yield cell.getLocalDateTimeCellValue().format(DateTimeFormatter.ISO_LOCAL_DATE);
-                } else {
-                    yield String.valueOf((long) cell.getNumericCellValue());
-                }
+    private class RowTracker {
+
+        private final String format;
+        private ImportChunkEvent event;
+        private int firstRow;
+        private int rows;
+        private int skipped;
+        private int rejected;
+        private long consumerNanos;
+
+        RowTracker(String format) {
+            this.format = format;
+        }
+
+        void skipped(int rowNumber) {
+            metrics.importRow(format, "skipped");
+            startRow(rowNumber);
+            skipped++;
+            endRow();
+        }
+
+        void rejected(int rowNumber) {
+            metrics.importRow(format, "rejected");
+            startRow(rowNumber);
+            rejected++;
+            endRow();
+        }
+
+        void parsed(int rowNumber, Consumer<CertificateRequest> consumer, CertificateRequest request) {
+            metrics.importRow(format, "parsed");
+            startRow(rowNumber);
+            if (event.isEnabled()) {
+                long started = System.nanoTime();
+                consumer.accept(request);
+                consumerNanos += System.nanoTime() - started;
+            } else {
+                consumer.accept(request);
             }
-            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-            default -> null;
-        };
-    }
+            endRow();
+        }
 
-    /**
-     * Parse date string to LocalDate
-     */
-    private LocalDate parseDate(String dateStr) {
-        if (dateStr == null || dateStr.trim().isEmpty()) {
-            return LocalDate.now();
+        /**
+         * Report the last, partial chunk
+         */
+        void finish() {
+            if (event != null) {
+                commitChunk();
+            }
+        }
+
+        private void startRow(int rowNumber) {
+            if (event == null) {
+                event = new ImportChunkEvent();
+                event.begin();
+                firstRow = rowNumber;
+            }
+        }
+
+        private void endRow() {
+            if (++rows == PROFILE_CHUNK_ROWS) {
+                commitChunk();
+            }
         }
 
-        // Try parsing as LocalDate first
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                return LocalDate.parse(dateStr, formatter);
-            } catch (Exception e) {
-                // Try next formatter
+        private void commitChunk() {
+            event.end();
+            if (event.shouldCommit()) {
+                event.format = format;
+                event.firstRow = firstRow;
+                event.rows = rows;
+                event.skipped = skipped;
+                event.rejected = rejected;
+                event.consumerTime = consumerNanos;
+                event.commit();
             }
+            event = null;
+            rows = 0;
+            skipped = 0;
+            rejected = 0;
+            consumerNanos = 0;
         }
+    }
 
-        // Try parsing as LocalDateTime and convert to LocalDate
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                return LocalDateTime.parse(dateStr, formatter).toLocalDate();
-            } catch (Exception e) {
-                // Try next formatter
+    /**
+     * Formats numeric cells the way the importer expects:
+     * date-formatted cells as ISO dates, other numbers as whole numbers.
+     */
+    private static class ImportDataFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value).format(DateTimeFormatter.ISO_LOCAL_DATE);
             }
+            return String.valueOf((long) value);
         }
+    }
 
-        log.warn("Could not parse date: {}, using current date", dateStr);
-        return LocalDate.now();
+    private void logReport(ImportReport report) {
+        log.info("Imported {} certificate requests from {} ({} rows read, {} skipped, {} rejected, dates as {})",
+            report.getRowsAccepted(), report.getFormat(), report.getRowsRead(),
+            report.getRowsSkipped(), report.getRowsRejected(), report.getDateFormat());
+        if (report.getRowsRejected() > 0) {
+            ImportReport.RowError first = report.getErrors().get(0);
+            log.warn("Rejected {} import rows; first: row {} {}: {}", report.getRowsRejected(),
+                first.getRowNumber(), first.getColumn(), first.getMessage());
+        }
     }
 }
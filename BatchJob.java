@@ -0,0 +1,157 @@
+package com.certificate.service;
+
+import com.certificate.dto.BatchGenerationResult;
+import com.certificate.dto.CertificateResponse;
+import com.certificate.dto.ImportReport;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory state of a background batch job.
+ * Counters are updated from worker threads through the progress listener.
+ */
+@Getter
+public class BatchJob implements BatchProgressListener {
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String jobId;
+    private final String source;
+    private final AtomicInteger total;
+    /** Rows are read from an import file (which yields an import report) */
+    private final boolean fileImport;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    /** Rows of an incremental import that were already issued */
+    private final AtomicInteger unchanged = new AtomicInteger();
+    /** Certificates revoked because a corrected row of an incremental import replaced them */
+    private final AtomicInteger superseded = new AtomicInteger();
+
+    private volatile State state = State.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+    private volatile long startedNanos;
+    private volatile boolean inputComplete;
+    private volatile String error;
+    private volatile BatchGenerationResult result;
+    private volatile ImportReport importReport;
+
+    public BatchJob(String jobId, String source, int total) {
+        this.jobId = jobId;
+        this.source = source;
+        this.total = new AtomicInteger(total);
+        this.fileImport = false;
+        this.inputComplete = true;
+    }
+
+    /**
+     * Job whose rows are discovered while the input is still being read
+     */
+    public BatchJob(String jobId, String source) {
+        this.jobId = jobId;
+        this.source = source;
+        this.total = new AtomicInteger();
+        this.fileImport = true;
+        this.inputComplete = false;
+    }
+
+    @Override
+    public void onSuccess(int rowNumber, CertificateResponse response) {
+        succeeded.incrementAndGet();
+    }
+
+    @Override
+    public void onFailure(BatchGenerationResult.Failure failure) {
+        failed.incrementAndGet();
+    }
+
+    void markRunning() {
+        startedNanos = System.nanoTime();
+        startedAt = LocalDateTime.now();
+        state = State.RUNNING;
+    }
+
+    void rowRead() {
+        total.incrementAndGet();
+    }
+
+    void rowUnchanged() {
+        unchanged.incrementAndGet();
+    }
+
+    void certificateSuperseded() {
+        superseded.incrementAndGet();
+    }
+
+    void markInputComplete(ImportReport importReport) {
+        this.importReport = importReport;
+        inputComplete = true;
+    }
+
+    void markCompleted(BatchGenerationResult result) {
+        this.result = result;
+        completedAt = LocalDateTime.now();
+        state = State.COMPLETED;
+    }
+
+    void markFailed(String error) {
+        markFailed(error, null);
+    }
+
+    /**
+     * Fail the job, keeping whatever rows were issued before the failure
+     */
+    void markFailed(String error, BatchGenerationResult partialResult) {
+        this.error = error;
+        this.result = partialResult;
+        completedAt = LocalDateTime.now();
+        state = State.FAILED;
+    }
+
+    /**
+     * Rows known so far; final once the input has been fully read
+     */
+    public int getTotal() {
+        return total.get();
+    }
+
+    public int getProcessed() {
+        return succeeded.get() + failed.get();
+    }
+
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    /**
+     * Rows processed per second since the job started
+     */
+    public double getThroughputPerSecond() {
+        if (startedAt == null) {
+            return 0;
+        }
+        double seconds = Duration.ofNanos(System.nanoTime() - startedNanos).toMillis() / 1000.0;
+        return seconds > 0 ? getProcessed() / seconds : 0;
+    }
+
+    /**
+     * Estimated seconds until all rows are processed, or null if unknown
+     */
+    public Long getEtaSeconds() {
+        if (isFinished()) {
+            return 0L;
+        }
+        if (!inputComplete) {
+            return null;
+        }
+        double throughput = getThroughputPerSecond();
+        if (throughput <= 0) {
+            return null;
+        }
+        return Math.round((getTotal() - getProcessed()) / throughput);
+    }
+}
@@ -0,0 +1,148 @@
+package com.certificate.controller;
+
+import com.certificate.dto.BatchGenerationResult;
+import com.certificate.dto.BatchJobStatus;
+import com.certificate.dto.CertificateRequest;
+import com.certificate.dto.ImportReport;
+import com.certificate.service.BatchJob;
+import com.certificate.service.BatchJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST API for background batch jobs
+ * Submissions return immediately with a job ID that can be polled for progress
+ */
+@RestController
+@RequestMapping("/api/certificates/jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class BatchJobController {
+
+    private final BatchJobService batchJobService;
+
+    /**
+     * Submit a batch of certificate requests
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchJobStatus> submitBatch(@RequestBody List<CertificateRequest> requests) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(submit("batch", requests));
+    }
+
+    /**
+     * Submit a CSV import
+     * The upload is spooled to a temp file and parsed row by row in the background,
+     * so generation starts before the whole file has been read.
+     * With incremental=true, rows whose certificate was already issued are skipped; adding supersede=true
+     * also revokes the certificates that corrected rows replace.
+     */
+    @PostMapping("/import/csv")
+    public ResponseEntity<BatchJobStatus> submitCsv(@RequestParam("file") MultipartFile file,
+                                                    @RequestParam(defaultValue = "false") boolean incremental,
+                                                    @RequestParam(defaultValue = "false") boolean supersede) {
+        try {
+            Path spooled = Files.createTempFile("certificate-import-", ".csv");
+            file.transferTo(spooled);
+
+            BatchJob job = batchJobService.createStreamingJob("csv:" + file.getOriginalFilename());
+            batchJobService.runCsvStreamJob(job, spooled, incremental, supersede);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(batchJobService.toStatus(job));
+        } catch (Exception e) {
+            log.error("Failed to submit CSV import", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * Submit an Excel import, streamed from a spooled copy like CSV
+     */
+    @PostMapping("/import/excel")
+    public ResponseEntity<BatchJobStatus> submitExcel(@RequestParam("file") MultipartFile file,
+                                                      @RequestParam(defaultValue = "false") boolean incremental,
+                                                      @RequestParam(defaultValue = "false") boolean supersede) {
+        try {
+            Path spooled = Files.createTempFile("certificate-import-", ".xlsx");
+            file.transferTo(spooled);
+
+            BatchJob job = batchJobService.createStreamingJob("excel:" + file.getOriginalFilename());
+            batchJobService.runExcelStreamJob(job, spooled, incremental, supersede);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(batchJobService.toStatus(job));
+        } catch (Exception e) {
+            log.error("Failed to submit Excel import", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * List all known jobs
+     */
+    @GetMapping
+    public ResponseEntity<List<BatchJobStatus>> getAllJobs() {
+        return ResponseEntity.ok(batchJobService.getAllJobStatuses());
+    }
+
+    /**
+     * Get job progress
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BatchJobStatus> getJobStatus(@PathVariable String jobId) {
+        return batchJobService.getJob(jobId)
+            .map(job -> ResponseEntity.ok(batchJobService.toStatus(job)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get generated certificates and failed rows of a finished job
+     */
+    @GetMapping("/{jobId}/results")
+    public ResponseEntity<?> getJobResults(@PathVariable String jobId) {
+        Optional<BatchJob> job = batchJobService.getJob(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        BatchGenerationResult result = job.get().getResult();
+        if (result == null) {
+            // Still running (or failed before producing results)
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(batchJobService.toStatus(job.get()));
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Get the import report of a CSV/Excel job: inferred columns and date format, and rejected rows
+     */
+    @GetMapping("/{jobId}/import-report")
+    public ResponseEntity<?> getImportReport(@PathVariable String jobId) {
+        Optional<BatchJob> job = batchJobService.getJob(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ImportReport report = job.get().getImportReport();
+        if (report == null) {
+            // Not an import, or its file could not be read
+            if (!job.get().isFileImport() || job.get().isFinished()) {
+                return ResponseEntity.notFound().build();
+            }
+            // Still reading the file
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(batchJobService.toStatus(job.get()));
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    private BatchJobStatus submit(String source, List<CertificateRequest> requests) {
+        BatchJob job = batchJobService.createJob(source, requests.size());
+        batchJobService.runJob(job, requests);
+        return batchJobService.toStatus(job);
+    }
+}
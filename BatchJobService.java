@@ -0,0 +1,250 @@
+package com.certificate.service;
+
+import com.certificate.dto.BatchGenerationResult;
+import com.certificate.dto.BatchJobStatus;
+import com.certificate.dto.CertificateRequest;
+import com.certificate.dto.ImportReport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Background batch job management
+ * Lets large batches run outside the HTTP request and be polled for progress
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchJobService {
+
+    private final CertificateService certificateService;
+    private final BatchImportService batchImportService;
+    private final IncrementalImportService incrementalImportService;
+
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${certificate.jobs.retention:100}")
+    private int retainedFinishedJobs;
+
+    /**
+     * Register a new job; call {@link #runJob} to start it
+     */
+    public BatchJob createJob(String source, int total) {
+        evictFinishedJobs();
+        BatchJob job = new BatchJob(UUID.randomUUID().toString(), source, total);
+        jobs.put(job.getJobId(), job);
+        log.info("Batch job {} created from {} with {} rows", job.getJobId(), source, total);
+        return job;
+    }
+
+    /**
+     * Register a job whose row count is not known until its input has been read
+     */
+    public BatchJob createStreamingJob(String source) {
+        evictFinishedJobs();
+        BatchJob job = new BatchJob(UUID.randomUUID().toString(), source);
+        jobs.put(job.getJobId(), job);
+        log.info("Streaming batch job {} created from {}", job.getJobId(), source);
+        return job;
+    }
+
+    /**
+     * Run the job in the background
+     */
+    @Async
+    public void runJob(BatchJob job, List<CertificateRequest> requests) {
+        job.markRunning();
+        try {
+            BatchGenerationResult result = certificateService.generateBatch(requests, job);
+            job.markCompleted(result);
+            log.info("Batch job {} completed: {} generated, {} failed",
+                job.getJobId(), result.getCertificates().size(), result.getFailures().size());
+        } catch (Exception e) {
+            log.error("Batch job {} failed", job.getJobId(), e);
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    /**
+     * Stream a CSV file into generation in the background.
+     * Rows are rendered while the file is still being parsed; the file is deleted afterwards.
+     * An incremental import only generates rows that have not been issued yet; with supersede, it also
+     * revokes the certificates its corrected rows replace.
+     */
+    @Async
+    public void runCsvStreamJob(BatchJob job, Path csvFile, boolean incremental, boolean supersede) {
+        runStreamJob(job, csvFile, incremental, supersede, consumer -> {
+            try (InputStream input = Files.newInputStream(csvFile)) {
+                return batchImportService.streamCsv(input, consumer);
+            }
+        });
+    }
+
+    /**
+     * Stream an Excel file into generation in the background; the file is deleted afterwards
+     */
+    @Async
+    public void runExcelStreamJob(BatchJob job, Path excelFile, boolean incremental, boolean supersede) {
+        runStreamJob(job, excelFile, incremental, supersede, consumer -> batchImportService.streamExcel(excelFile, consumer));
+    }
+
+    private void runStreamJob(BatchJob job, Path importFile, boolean incremental, boolean supersede,
+                              RowSource rowSource) {
+        job.markRunning();
+        StreamingBatch batch = null;
+        BatchGenerationResult result = null;
+        Exception failure = null;
+        try {
+            StreamingBatch openBatch = certificateService.openStreamingBatch(job);
+            batch = openBatch;
+            Consumer<CertificateRequest> submit = request -> {
+                job.rowRead();
+                openBatch.submit(request);
+            };
+
+            ImportReport report;
+            IncrementalImportService.IncrementalImport newRows = null;
+            if (incremental) {
+                newRows = incrementalImportService.open(
+                    (request, onIssued) -> {
+                        job.rowRead();
+                        openBatch.submit(request, onIssued);
+                    },
+                    job::rowUnchanged, supersede);
+                report = rowSource.readInto(newRows);
+                newRows.finish();
+            } else {
+                report = rowSource.readInto(submit);
+            }
+            job.markInputComplete(report);
+            if (report.getRowsRejected() > 0) {
+                log.warn("Batch job {}: {} import rows rejected", job.getJobId(), report.getRowsRejected());
+            }
+
+            result = batch.finish();
+            if (newRows != null) {
+                // Only after the whole file is read and stored: any later row may still keep a certificate
+                revokeSuperseded(job, newRows.getSuperseded());
+            }
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            if (batch != null && result == null) {
+                // Input failed midway: rows already submitted are still rendering. Wait for them so
+                // their certificates are reported and the completion hook releases their emails.
+                result = batch.finish();
+            }
+            try {
+                Files.deleteIfExists(importFile);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", importFile, e);
+            }
+        }
+
+        if (failure != null) {
+            log.error("Batch job {} failed after {} rows were generated", job.getJobId(),
+                result != null ? result.getCertificates().size() : 0, failure);
+            job.markFailed(failure.getMessage(), result);
+            return;
+        }
+        job.markCompleted(result);
+        log.info("Batch job {} completed: {} generated, {} failed",
+            job.getJobId(), result.getCertificates().size(), result.getFailures().size());
+    }
+
+    /**
+     * Revoke the certificates the import's corrected rows replaced
+     */
+    private void revokeSuperseded(BatchJob job, Set<String> certificateIds) {
+        for (String certificateId : certificateIds) {
+            try {
+                if (certificateService.revokeCertificate(certificateId)) {
+                    job.certificateSuperseded();
+                    log.info("Batch job {}: certificate {} superseded by a corrected row", job.getJobId(), certificateId);
+                }
+            } catch (RuntimeException e) {
+                log.error("Batch job {}: could not revoke superseded certificate {}", job.getJobId(), certificateId, e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        ImportReport readInto(Consumer<CertificateRequest> consumer) throws Exception;
+    }
+
+    /**
+     * Get job by ID
+     */
+    public Optional<BatchJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Get status snapshots of all known jobs, newest first
+     */
+    public List<BatchJobStatus> getAllJobStatuses() {
+        return jobs.values().stream()
+            .sorted(Comparator.comparing(BatchJob::getCreatedAt).reversed())
+            .map(this::toStatus)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Convert job to status DTO
+     */
+    public BatchJobStatus toStatus(BatchJob job) {
+        return BatchJobStatus.builder()
+            .jobId(job.getJobId())
+            .source(job.getSource())
+            .state(job.getState().name())
+            .total(job.getTotal())
+            .inputComplete(job.isInputComplete())
+            .processed(job.getProcessed())
+            .succeeded(job.getSucceeded().get())
+            .failed(job.getFailed().get())
+            .rejected(job.getImportReport() != null ? job.getImportReport().getRowsRejected() : 0)
+            .unchanged(job.getUnchanged().get())
+            .superseded(job.getSuperseded().get())
+            .remaining(job.getTotal() - job.getProcessed())
+            .throughputPerSecond(job.getThroughputPerSecond())
+            .etaSeconds(job.getEtaSeconds())
+            .createdAt(job.getCreatedAt())
+            .startedAt(job.getStartedAt())
+            .completedAt(job.getCompletedAt())
+            .error(job.getError())
+            .statusUrl("/api/certificates/jobs/" + job.getJobId())
+            .resultsUrl("/api/certificates/jobs/" + job.getJobId() + "/results")
+            .importReportUrl(job.isFileImport() ? "/api/certificates/jobs/" + job.getJobId() + "/import-report" : null)
+            .build();
+    }
+
+    /**
+     * Drop the oldest finished jobs beyond the retention limit
+     */
+    private void evictFinishedJobs() {
+        List<BatchJob> finished = jobs.values().stream()
+            .filter(BatchJob::isFinished)
+            .sorted(Comparator.comparing(BatchJob::getCompletedAt))
+            .collect(Collectors.toList());
+        for (int i = 0; i < finished.size() - retainedFinishedJobs; i++) {
+            jobs.remove(finished.get(i).getJobId());
+        }
+    }
+}
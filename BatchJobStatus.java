@@ -0,0 +1,42 @@
+package com.certificate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress snapshot of a background batch job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJobStatus {
+    private String jobId;
+    private String source;
+    private String state;
+    private int total;
+    private boolean inputComplete;
+    private int processed;
+    private int succeeded;
+    private int failed;
+    /** Import rows rejected before generation (see the import report) */
+    private int rejected;
+    /** Rows of an incremental import skipped because they were already issued */
+    private int unchanged;
+    /** Earlier certificates revoked because a corrected row of an incremental import replaced them */
+    private int superseded;
+    private int remaining;
+    private double throughputPerSecond;
+    private Long etaSeconds;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private String error;
+    private String statusUrl;
+    private String resultsUrl;
+    private String importReportUrl;
+}
@@ -0,0 +1,20 @@
+package com.certificate.service;
+
+import com.certificate.dto.BatchGenerationResult;
+import com.certificate.dto.CertificateResponse;
+
+/**
+ * Receives per-row progress from a running batch.
+ * Called from worker threads, so implementations must be thread-safe.
+ */
+public interface BatchProgressListener {
+
+    BatchProgressListener NONE = new BatchProgressListener() {
+    };
+
+    default void onSuccess(int rowNumber, CertificateResponse response) {
+    }
+
+    default void onFailure(BatchGenerationResult.Failure failure) {
+    }
+}
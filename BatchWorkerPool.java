@@ -0,0 +1,77 @@
+package com.certificate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded worker pool for batch certificate rendering.
+ * Sized to the CPU count by default; when the queue is full the submitting
+ * thread runs the task itself, which throttles producers instead of buffering
+ * an unbounded number of pending rows.
+ */
+@Component
+@Slf4j
+public class BatchWorkerPool {
+
+    private final ThreadPoolExecutor executor;
+
+    public BatchWorkerPool(@Value("${certificate.batch.parallelism:0}") int parallelism,
+                           @Value("${certificate.batch.queue-capacity:256}") int queueCapacity) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(
+            threads, threads,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new WorkerThreadFactory(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        log.info("Batch worker pool started with {} threads, queue capacity {}", threads, queueCapacity);
+    }
+
+    /**
+     * Submit a task to the pool
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * Number of worker threads
+     */
+    public int getParallelism() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "cert-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
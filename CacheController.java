@@ -0,0 +1,38 @@
+package com.certificate.controller;
+
+import com.certificate.dto.CacheStats;
+import com.certificate.service.RenderedPdfCache;
+import com.certificate.service.TemplateAssetCache;
+import com.certificate.service.VerificationCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST API exposing in-memory cache statistics
+ */
+@RestController
+@RequestMapping("/api/admin/caches")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final TemplateAssetCache templateAssetCache;
+    private final VerificationCache verificationCache;
+    private final RenderedPdfCache renderedPdfCache;
+
+    /**
+     * Get hit/miss statistics of all caches
+     */
+    @GetMapping
+    public ResponseEntity<List<CacheStats>> getCacheStats() {
+        return ResponseEntity.ok(List.of(
+            templateAssetCache.getStats(),
+            verificationCache.getStats(),
+            renderedPdfCache.getStats()
+        ));
+    }
+}
@@ -0,0 +1,143 @@
+package com.certificate.service;
+
+import com.certificate.model.Certificate;
+import com.certificate.repository.CertificateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Persists batch-issued certificates with group commit.
+ *
+ * Workers hand over rendered certificates and block until they are stored. Whichever worker
+ * holds the write lock stores everything queued so far in one transaction (chunked saveAll,
+ * outbox rows included), so under load one commit covers as many rows as there are workers
+ * instead of one. If a chunk fails, its rows are retried one by one so that only the bad row
+ * fails.
+ */
+@Component
+@Slf4j
+public class CertificateBatchWriter {
+
+    private final CertificateRepository certificateRepository;
+    private final EmailOutboxService emailOutboxService;
+    private final VerificationCache verificationCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public CertificateBatchWriter(CertificateRepository certificateRepository,
+                                  EmailOutboxService emailOutboxService,
+                                  VerificationCache verificationCache,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${certificate.batch.write-chunk-size:100}") int chunkSize) {
+        this.certificateRepository = certificateRepository;
+        this.emailOutboxService = emailOutboxService;
+        this.verificationCache = verificationCache;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Store a certificate, queueing its email under the batch key if requested.
+     * Returns the saved certificate, or throws the error that prevented storing this row.
+     */
+    public Certificate write(Certificate certificate, boolean sendEmail, String batchKey) {
+        Pending pending = new Pending(certificate, sendEmail, batchKey);
+        queue.add(pending);
+
+        writeLock.lock();
+        try {
+            // Usually stored by the previous lock holder already
+            while (!pending.done) {
+                flush();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        if (pending.failure != null) {
+            throw pending.failure;
+        }
+        return pending.saved;
+    }
+
+    private void flush() {
+        List<Pending> chunk = new ArrayList<>(chunkSize);
+        Pending next;
+        while (chunk.size() < chunkSize && (next = queue.poll()) != null) {
+            chunk.add(next);
+        }
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            store(chunk);
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                chunk.get(0).failure = e;
+                chunk.get(0).done = true;
+                return;
+            }
+            log.warn("Storing {} certificates together failed, retrying one by one: {}", chunk.size(), e.getMessage());
+            for (Pending pending : chunk) {
+                pending.certificate.setId(null);
+                try {
+                    store(List.of(pending));
+                } catch (RuntimeException rowError) {
+                    pending.failure = rowError;
+                }
+            }
+        }
+        chunk.forEach(pending -> pending.done = true);
+    }
+
+    private void store(List<Pending> chunk) {
+        List<Certificate> saved = transactionTemplate.execute(status -> {
+            List<Certificate> certificates = certificateRepository.saveAll(
+                chunk.stream().map(pending -> pending.certificate).collect(Collectors.toList()));
+
+            Map<String, List<Certificate>> emails = new LinkedHashMap<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                if (chunk.get(i).sendEmail) {
+                    emails.computeIfAbsent(chunk.get(i).batchKey, key -> new ArrayList<>()).add(certificates.get(i));
+                }
+            }
+            emails.forEach((batchKey, certificatesToEmail) -> emailOutboxService.enqueueAll(certificatesToEmail, batchKey));
+            return certificates;
+        });
+
+        for (int i = 0; i < chunk.size(); i++) {
+            chunk.get(i).saved = saved.get(i);
+            verificationCache.registerIssued(saved.get(i).getCertificateId());
+        }
+    }
+
+    private static final class Pending {
+        private final Certificate certificate;
+        private final boolean sendEmail;
+        private final String batchKey;
+        private Certificate saved;
+        private RuntimeException failure;
+        private boolean done;
+
+        private Pending(Certificate certificate, boolean sendEmail, String batchKey) {
+            this.certificate = certificate;
+            this.sendEmail = sendEmail;
+            this.batchKey = batchKey;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.certificate.repository;
+
+import com.certificate.model.Certificate;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Delivery-state updates on certificates, written without loading the entity
+ */
+public interface CertificateDeliveryRepository extends Repository<Certificate, Long> {
+
+    @Modifying
+    @Query("update Certificate c set c.emailSent = true, c.emailSentDate = :sentAt where c.id = :id")
+    int markEmailSent(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Record delivery for many certificates in one statement
+     */
+    @Modifying
+    @Query("update Certificate c set c.emailSent = true, c.emailSentDate = :sentAt where c.id in :ids")
+    int markEmailSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+}
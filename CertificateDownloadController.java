@@ -0,0 +1,141 @@
+package com.certificate.controller;
+
+import com.certificate.service.CertificatePdf;
+import com.certificate.service.CertificateService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST API for certificate PDF downloads
+ * Serves stored files and renders lazily issued certificates on first access.
+ * Responses carry a content-hash ETag and Last-Modified, so revalidations get 304.
+ * Stored files are handed to the servlet container's sendfile support (zero-copy) when available;
+ * otherwise, and for multi-range requests, Spring streams the resource and handles Range itself.
+ */
+@RestController
+@RequestMapping("/api/certificates")
+@RequiredArgsConstructor
+@Slf4j
+public class CertificateDownloadController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final CertificateService certificateService;
+
+    /**
+     * Download certificate PDF
+     */
+    @GetMapping("/{id}/pdf")
+    public ResponseEntity<Resource> downloadPdf(@PathVariable Long id, ServletWebRequest webRequest) {
+        try {
+            Optional<CertificatePdf> found = certificateService.getCertificatePdf(id);
+            if (found.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+
+            CertificatePdf pdf = found.get();
+            if (webRequest.checkNotModified(pdf.getETag(), pdf.getLastModified())) {
+                return null;
+            }
+
+            HttpServletRequest request = webRequest.getRequest();
+            if (pdf.getFile() != null && canSendFile(request)) {
+                return sendFile(pdf, request);
+            }
+
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(pdf))
+                .body(pdf.getResource());
+        } catch (Exception e) {
+            log.error("Failed to download certificate", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private boolean canSendFile(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            return false;
+        }
+        // Multipart byte ranges are left to Spring
+        String range = request.getHeader(HttpHeaders.RANGE);
+        return range == null || !range.contains(",");
+    }
+
+    /**
+     * Let the container write the file (or a single range of it) straight from the page cache to the socket
+     */
+    private ResponseEntity<Resource> sendFile(CertificatePdf pdf, HttpServletRequest request) {
+        long length = pdf.getContentLength();
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, pdf)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    partial = true;
+                }
+            } catch (IllegalArgumentException e) {
+                return rangeNotSatisfiable(length);
+            }
+            if (start >= length || start > end) {
+                return rangeNotSatisfiable(length);
+            }
+        }
+
+        request.setAttribute(SENDFILE_FILENAME, pdf.getFile().getAbsolutePath());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, end + 1);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+            .contentType(MediaType.APPLICATION_PDF)
+            .contentLength(end - start + 1)
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(pdf));
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        return response.build();
+    }
+
+    private ResponseEntity<Resource> rangeNotSatisfiable(long length) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+            .build();
+    }
+
+    /**
+     * A Range is only honoured if If-Range is absent or still names the current content
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, CertificatePdf pdf) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.equals("\"" + pdf.getETag() + "\"");
+    }
+
+    private String contentDisposition(CertificatePdf pdf) {
+        return "attachment; filename=\"" + pdf.getFileName() + "\"";
+    }
+}
@@ -0,0 +1,79 @@
+package com.certificate.controller;
+
+import com.certificate.service.CertificateExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST API for bulk certificate export
+ */
+@RestController
+@RequestMapping("/api/certificates/export")
+@RequiredArgsConstructor
+@Slf4j
+public class CertificateExportController {
+
+    private final CertificateExportService certificateExportService;
+
+    /**
+     * Stream a ZIP of certificate PDFs selected by exactly one of: batch job, ID list, recipient email
+     */
+    @GetMapping("/zip")
+    public void exportZip(@RequestParam(required = false) String jobId,
+                          @RequestParam(required = false) List<Long> ids,
+                          @RequestParam(required = false) String email,
+                          HttpServletResponse response) throws IOException {
+        int selectors = (jobId != null ? 1 : 0) + (ids != null ? 1 : 0) + (email != null ? 1 : 0);
+        if (selectors != 1) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Specify exactly one of jobId, ids or email");
+            return;
+        }
+
+        List<Long> certificateIds;
+        String fileName;
+        if (jobId != null) {
+            Optional<List<Long>> jobCertificates = certificateExportService.findJobCertificateIds(jobId);
+            if (jobCertificates.isEmpty()) {
+                response.sendError(HttpStatus.NOT_FOUND.value(), "Job not found or not finished");
+                return;
+            }
+            certificateIds = jobCertificates.get();
+            fileName = "certificates-" + jobId + ".zip";
+        } else if (ids != null) {
+            certificateIds = ids;
+            fileName = "certificates.zip";
+        } else {
+            certificateIds = certificateExportService.findRecipientCertificateIds(email);
+            fileName = "certificates.zip";
+        }
+
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        certificateExportService.writeZip(certificateIds, response.getOutputStream());
+        response.flushBuffer();
+    }
+
+    /**
+     * Stream all certificates, or one recipient's, as a JSON array without loading them into memory
+     */
+    @GetMapping("/json")
+    public void exportJson(@RequestParam(required = false) String email,
+                           HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        certificateExportService.writeJson(email, response.getOutputStream());
+        response.flushBuffer();
+    }
+}
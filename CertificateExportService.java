@@ -0,0 +1,158 @@
+package com.certificate.service;
+
+import com.certificate.dto.BatchGenerationResult;
+import com.certificate.dto.CertificateResponse;
+import com.certificate.model.Certificate;
+import com.certificate.repository.CertificateQueryRepository;
+import com.certificate.repository.CertificateRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Bulk export of certificates: PDFs as a ZIP stream, or listing data as a JSON stream.
+ * ZIP entries are stored uncompressed (PDFs are already compressed) and written straight to the
+ * output, one certificate at a time, so memory use does not depend on the number of certificates.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CertificateExportService {
+
+    private static final int LOAD_CHUNK_SIZE = 100;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CertificateRepository certificateRepository;
+    private final CertificateQueryRepository certificateQueryRepository;
+    private final CertificateService certificateService;
+    private final ObjectMapper objectMapper;
+    private final CertificatePdfProvider certificatePdfProvider;
+    private final BatchJobService batchJobService;
+
+    /**
+     * IDs of the certificates generated by a batch job, or empty if the job is unknown or unfinished
+     */
+    public Optional<List<Long>> findJobCertificateIds(String jobId) {
+        return batchJobService.getJob(jobId)
+            .map(BatchJob::getResult)
+            .map(BatchGenerationResult::getCertificates)
+            .map(certificates -> certificates.stream()
+                .map(CertificateResponse::getId)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * IDs of all certificates issued to a recipient
+     */
+    public List<Long> findRecipientCertificateIds(String email) {
+        return certificateQueryRepository.findIdsByRecipientEmail(CertificateService.normalizeEmail(email));
+    }
+
+    /**
+     * Write certificates (optionally of one recipient) as a JSON array, streamed page by page
+     */
+    public void writeJson(String email, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartArray();
+            certificateService.forEachCertificate(email, certificate -> {
+                try {
+                    json.writeObject(certificate);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Write the PDFs of the given certificates as a ZIP. Missing and revoked certificates are skipped.
+     *
+     * @return number of certificates written
+     */
+    public int writeZip(List<Long> requestedIds, OutputStream output) throws IOException {
+        // A repeated ID would repeat an entry name, which fails once the response is already committed
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(requestedIds));
+        int written = 0;
+        ZipOutputStream zip = new ZipOutputStream(output);
+        zip.setMethod(ZipOutputStream.STORED);
+
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size()));
+            for (Certificate certificate : certificateRepository.findAllById(chunk)) {
+                if (certificate.getStatus() != Certificate.CertificateStatus.ACTIVE) {
+                    continue;
+                }
+                Resource pdf;
+                StoredEntry entry;
+                try {
+                    pdf = certificatePdfProvider.getPdf(certificate);
+                    entry = checksum(certificate.getCertificateId() + ".pdf", pdf);
+                } catch (IOException | RuntimeException e) {
+                    // Nothing written for this entry yet, so the archive stays valid
+                    log.error("Skipping certificate {} in export", certificate.getCertificateId(), e);
+                    continue;
+                }
+                writeEntry(zip, entry, pdf);
+                written++;
+            }
+            zip.flush();
+        }
+
+        zip.finish();
+        log.info("Exported {} of {} certificates as ZIP", written, ids.size());
+        return written;
+    }
+
+    /**
+     * Stored entries need size and CRC up front, so the content is read once to checksum it
+     */
+    private StoredEntry checksum(String name, Resource pdf) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = pdf.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        return new StoredEntry(name, size, crc.getValue());
+    }
+
+    private void writeEntry(ZipOutputStream zip, StoredEntry stored, Resource pdf) throws IOException {
+        ZipEntry entry = new ZipEntry(stored.name());
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(stored.size());
+        entry.setCompressedSize(stored.size());
+        entry.setCrc(stored.crc());
+
+        zip.putNextEntry(entry);
+        try (InputStream in = pdf.getInputStream()) {
+            in.transferTo(zip);
+        }
+        zip.closeEntry();
+    }
+
+    private record StoredEntry(String name, long size, long crc) {
+    }
+}
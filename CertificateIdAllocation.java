@@ -0,0 +1,36 @@
+package com.certificate.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Allocation state for certificate IDs.
+ * Instances reserve blocks of sequence values from this row under a row lock,
+ * then hand out IDs from the block in memory.
+ */
+@Entity
+@Table(name = "certificate_id_allocation")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CertificateIdAllocation {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    /** First sequence value not yet reserved by any instance */
+    @Column(nullable = false)
+    private long nextValue;
+
+    /** Per-deployment key that scrambles sequence values into non-guessable IDs */
+    @Column(nullable = false)
+    private long scrambleKey;
+}
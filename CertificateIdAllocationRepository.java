@@ -0,0 +1,24 @@
+package com.certificate.repository;
+
+import com.certificate.model.CertificateIdAllocation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CertificateIdAllocationRepository extends JpaRepository<CertificateIdAllocation, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from CertificateIdAllocation a where a.name = :name")
+    Optional<CertificateIdAllocation> findForUpdate(@Param("name") String name);
+
+    @Query("select c.certificateId from Certificate c where c.certificateId in :ids")
+    List<String> findExistingCertificateIds(@Param("ids") Collection<String> ids);
+}
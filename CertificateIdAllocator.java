@@ -0,0 +1,157 @@
+package com.certificate.service;
+
+import com.certificate.model.CertificateIdAllocation;
+import com.certificate.repository.CertificateIdAllocationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Certificate ID allocator
+ * Hands out unique CERT-XXXX-XXXX IDs without a database round trip per ID.
+ *
+ * Each instance reserves a block of sequence values from a shared, row-locked counter,
+ * so IDs stay unique across restarts and across instances sharing the database.
+ * Sequence values are mapped through a keyed permutation of the 32-bit space, which keeps
+ * IDs non-sequential while guaranteeing that distinct values never collide. IDs issued
+ * before this allocator existed were random, so each new block is checked against
+ * existing certificates with a single query and any clash is skipped.
+ */
+@Service
+@Slf4j
+public class CertificateIdAllocator {
+
+    private static final String ALLOCATION_NAME = "certificate";
+    private static final long ID_SPACE = 1L << 32;
+    private static final int FEISTEL_ROUNDS = 4;
+
+    private final CertificateIdAllocationRepository allocationRepository;
+    private final TransactionTemplate requiresNew;
+    private final int blockSize;
+
+    private final Deque<String> available = new ArrayDeque<>();
+    private boolean allocationCreated;
+
+    public CertificateIdAllocator(CertificateIdAllocationRepository allocationRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${certificate.id.block-size:1000}") int blockSize) {
+        this.allocationRepository = allocationRepository;
+        this.blockSize = blockSize;
+        // Reservations commit on their own, even if the caller's transaction rolls back
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Get the next unique certificate ID.
+     * Do not call while holding a database connection: when the block runs out, the refill
+     * needs a connection of its own while other callers wait on this monitor.
+     */
+    public synchronized String nextId() {
+        while (available.isEmpty()) {
+            reserveBlock();
+        }
+        return available.poll();
+    }
+
+    /**
+     * Reserve the next block of sequence values and queue the IDs that are not already taken
+     */
+    private void reserveBlock() {
+        if (!allocationCreated) {
+            createAllocation();
+            allocationCreated = true;
+        }
+        List<String> block = requiresNew.execute(status -> {
+            CertificateIdAllocation allocation = allocationRepository.findForUpdate(ALLOCATION_NAME).orElseThrow();
+
+            long start = allocation.getNextValue();
+            long end = Math.min(start + blockSize, ID_SPACE);
+            if (start >= end) {
+                throw new IllegalStateException("Certificate ID space exhausted");
+            }
+            allocation.setNextValue(end);
+            allocationRepository.save(allocation);
+
+            List<String> ids = new ArrayList<>((int) (end - start));
+            for (long value = start; value < end; value++) {
+                ids.add(format(scramble((int) value, allocation.getScrambleKey())));
+            }
+
+            Set<String> taken = new HashSet<>(allocationRepository.findExistingCertificateIds(ids));
+            if (!taken.isEmpty()) {
+                log.info("Skipping {} certificate IDs already in use", taken.size());
+                ids.removeIf(taken::contains);
+            }
+
+            log.debug("Reserved certificate ID block [{}, {})", start, end);
+            return ids;
+        });
+        available.addAll(block);
+    }
+
+    /**
+     * Create the allocation row on first use, in a transaction of its own: if another instance
+     * creates it first, only this insert is rolled back and the block reservation still runs
+     */
+    private void createAllocation() {
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                if (allocationRepository.existsById(ALLOCATION_NAME)) {
+                    return;
+                }
+                allocationRepository.saveAndFlush(CertificateIdAllocation.builder()
+                    .name(ALLOCATION_NAME)
+                    .nextValue(0)
+                    .scrambleKey(new SecureRandom().nextLong())
+                    .build());
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the row first
+            log.debug("Certificate ID allocation row created concurrently");
+        }
+    }
+
+    /**
+     * Keyed Feistel permutation of 32-bit values: a bijection, so distinct inputs give distinct IDs
+     */
+    static int scramble(int value, long key) {
+        int left = value >>> 16;
+        int right = value & 0xFFFF;
+        for (int round = 0; round < FEISTEL_ROUNDS; round++) {
+            int next = left ^ roundFunction(right, key, round);
+            left = right;
+            right = next;
+        }
+        return (left << 16) | right;
+    }
+
+    private static int roundFunction(int half, long key, int round) {
+        long x = (half | ((long) round << 16)) ^ key;
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return (int) (x & 0xFFFF);
+    }
+
+    /**
+     * Format: CERT-XXXX-XXXX
+     */
+    static String format(int value) {
+        return String.format("CERT-%04X-%04X", value >>> 16, value & 0xFFFF);
+    }
+}
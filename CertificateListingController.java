@@ -0,0 +1,41 @@
+package com.certificate.controller;
+
+import com.certificate.dto.CertificatePage;
+import com.certificate.service.CertificateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST API for bounded certificate listings
+ */
+@RestController
+@RequestMapping("/api/certificates")
+@RequiredArgsConstructor
+public class CertificateListingController {
+
+    private final CertificateService certificateService;
+
+    /**
+     * One page of certificates, optionally of one recipient
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CertificatePage> getPage(@RequestParam(defaultValue = "0") int page,
+                                                   @RequestParam(defaultValue = "50") int size,
+                                                   @RequestParam(required = false) String email) {
+        return ResponseEntity.ok(certificateService.getCertificates(email, page, size));
+    }
+
+    /**
+     * Certificates after a cursor; start without one and pass back {@code nextCursor}
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CertificatePage> getAfter(@RequestParam(defaultValue = "0") long after,
+                                                    @RequestParam(defaultValue = "50") int size,
+                                                    @RequestParam(required = false) String email) {
+        return ResponseEntity.ok(certificateService.getCertificatesAfter(email, after, size));
+    }
+}
@@ -0,0 +1,36 @@
+package com.certificate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A slice of a certificate listing.
+ * Offset pages carry page and totals; cursor pages carry the key to continue after instead.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CertificatePage {
+
+    @Builder.Default
+    private List<CertificateResponse> certificates = new ArrayList<>();
+
+    private int size;
+
+    /** Zero-based page number (offset pages only) */
+    private Integer page;
+
+    /** Matching certificates overall (offset pages only) */
+    private Long totalElements;
+
+    private Integer totalPages;
+
+    /** Pass as {@code after} to get the next cursor page; null on the last page */
+    private Long nextCursor;
+}
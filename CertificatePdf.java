@@ -0,0 +1,29 @@
+package com.certificate.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+
+/**
+ * PDF content of an issued certificate, ready to be served
+ */
+@Getter
+@AllArgsConstructor
+public class CertificatePdf {
+    private final String certificateId;
+    private final Resource resource;
+
+    /** Strong validator derived from the content hash */
+    private final String eTag;
+    private final long lastModified;
+    private final long contentLength;
+
+    /** Backing file, or null when the PDF was rendered in memory */
+    private final File file;
+
+    public String getFileName() {
+        return certificateId + ".pdf";
+    }
+}
@@ -0,0 +1,148 @@
+package com.certificate.service;
+
+import com.certificate.model.Certificate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resolves the PDF of an issued certificate.
+ * Certificates rendered at issuance are served from their file; lazily issued ones
+ * (no file) are rendered on first access and kept in the rendered-output cache.
+ * Content-addressed locations already name their content hash; for other stored files the
+ * hash is remembered per path, size and modification time, so conditional downloads do not
+ * re-read the file. Lazy renders are deterministic, so their hash survives a cache eviction.
+ */
+@Service
+@RequiredArgsConstructor
+public class CertificatePdfProvider {
+
+    private static final int MAX_FILE_TAGS = 10_000;
+
+    private final PdfGenerationService pdfGenerationService;
+    private final RenderedPdfCache renderedPdfCache;
+    private final CertificateStorage certificateStorage;
+
+    private final Map<String, FileTag> fileTags = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileTag> eldest) {
+            return size() > MAX_FILE_TAGS;
+        }
+    };
+
+    /**
+     * Get the certificate PDF as a resource
+     */
+    public Resource getPdf(Certificate certificate) throws IOException {
+        Resource stored = certificateStorage.load(certificate.getFilePath());
+        return stored != null ? stored : new ByteArrayResource(getPdfBytes(certificate));
+    }
+
+    /**
+     * Get the certificate PDF for an email attachment.
+     * Bytes retained at generation are used (and released) instead of reading the stored file.
+     */
+    public Resource getAttachment(Certificate certificate) throws IOException {
+        Resource stored = certificateStorage.load(certificate.getFilePath());
+        if (stored == null) {
+            // Issued lazily: render (or reuse the cached render, which stays for downloads)
+            return new ByteArrayResource(getPdfBytes(certificate));
+        }
+        byte[] retained = renderedPdfCache.take(certificate.getCertificateId());
+        return retained != null ? new ByteArrayResource(retained) : stored;
+    }
+
+    /**
+     * Get the certificate PDF together with its validators (ETag, last modified, length) for download
+     */
+    public CertificatePdf describe(Certificate certificate) throws IOException {
+        Resource stored = certificateStorage.load(certificate.getFilePath());
+        if (stored != null && stored.isFile()) {
+            File file = stored.getFile();
+            long length = file.length();
+            long modified = file.lastModified();
+            String eTag = certificateStorage.contentHash(certificate.getFilePath());
+            return new CertificatePdf(certificate.getCertificateId(), new FileSystemResource(file),
+                eTag != null ? eTag : fileTag(file, length, modified), modified, length, file);
+        }
+
+        long issued = certificate.getIssuedDate() != null
+            ? certificate.getIssuedDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            : -1;
+        if (stored != null) {
+            // Packed storage: the segment location is the content hash
+            String eTag = certificateStorage.contentHash(certificate.getFilePath());
+            if (eTag == null) {
+                try (InputStream in = stored.getInputStream()) {
+                    eTag = hash(in);
+                }
+            }
+            return new CertificatePdf(certificate.getCertificateId(), stored,
+                eTag, issued, stored.contentLength(), null);
+        }
+
+        byte[] pdf = getPdfBytes(certificate);
+        return new CertificatePdf(certificate.getCertificateId(), new ByteArrayResource(pdf),
+            HexFormat.of().formatHex(sha256().digest(pdf)), issued, pdf.length, null);
+    }
+
+    /**
+     * Get the rendered PDF bytes, rendering on first access
+     */
+    public byte[] getPdfBytes(Certificate certificate) throws IOException {
+        return renderedPdfCache.get(certificate.getCertificateId(),
+            () -> pdfGenerationService.renderCertificatePdf(certificate, certificate.getTemplate()));
+    }
+
+    private String fileTag(File file, long length, long modified) throws IOException {
+        String path = file.getAbsolutePath();
+        synchronized (fileTags) {
+            FileTag tag = fileTags.get(path);
+            if (tag != null && tag.length() == length && tag.modified() == modified) {
+                return tag.eTag();
+            }
+        }
+
+        String eTag;
+        try (InputStream in = new FileSystemResource(file).getInputStream()) {
+            eTag = hash(in);
+        }
+        synchronized (fileTags) {
+            fileTags.put(path, new FileTag(length, modified, eTag));
+        }
+        return eTag;
+    }
+
+    private String hash(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record FileTag(long length, long modified, String eTag) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.certificate.repository;
+
+import com.certificate.model.Certificate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-only certificate queries that return projections instead of full entities
+ */
+public interface CertificateQueryRepository extends Repository<Certificate, Long> {
+
+    String SUMMARY_SELECT = "select c.id as id, c.certificateId as certificateId, "
+        + "c.recipientName as recipientName, c.recipientEmail as recipientEmail, "
+        + "c.courseName as courseName, c.achievementTitle as achievementTitle, "
+        + "c.completionDate as completionDate, c.issuerName as issuerName, "
+        + "c.instructorName as instructorName, c.issuedDate as issuedDate, "
+        + "c.emailSent as emailSent, c.status as status from Certificate c ";
+
+    /**
+     * Primary key and certificate ID of rows after the given key, in key order
+     */
+    @Query("select c.id as id, c.certificateId as certificateId from Certificate c "
+        + "where c.id > :afterId order by c.id")
+    List<IdView> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Primary keys of a recipient's certificates, in key order
+     */
+    @Query("select c.id from Certificate c where c.recipientEmail = :email order by c.id")
+    List<Long> findIdsByRecipientEmail(@Param("email") String email);
+
+    /**
+     * One page of certificate summaries
+     */
+    @Query(value = SUMMARY_SELECT,
+        countQuery = "select count(c) from Certificate c")
+    Page<SummaryView> findSummaries(Pageable pageable);
+
+    /**
+     * One page of a recipient's certificate summaries
+     */
+    @Query(value = SUMMARY_SELECT + "where c.recipientEmail = :email",
+        countQuery = "select count(c) from Certificate c where c.recipientEmail = :email")
+    Page<SummaryView> findSummariesByRecipientEmail(@Param("email") String email, Pageable pageable);
+
+    /**
+     * Certificate summaries after the given key, in key order
+     */
+    @Query(SUMMARY_SELECT + "where c.id > :afterId order by c.id")
+    List<SummaryView> findSummariesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * A recipient's certificate summaries after the given key, in key order
+     */
+    @Query(SUMMARY_SELECT + "where c.recipientEmail = :email and c.id > :afterId order by c.id")
+    List<SummaryView> findSummariesByRecipientEmailAfter(@Param("email") String email,
+                                                         @Param("afterId") long afterId,
+                                                         Pageable pageable);
+
+    /**
+     * Those of the given certificate IDs whose certificate is in the given state
+     */
+    @Query("select c.certificateId from Certificate c where c.certificateId in :ids and c.status = :status")
+    List<String> findCertificateIdsInStatus(@Param("ids") Collection<String> ids,
+                                            @Param("status") Certificate.CertificateStatus status);
+
+    /**
+     * Content of the certificates of the given recipients that are in the given state,
+     * for comparing re-imported rows with what was already issued.
+     * Emails are stored in lower case, so the given emails must be lower case too.
+     */
+    @Query("select c.certificateId as certificateId, c.recipientName as recipientName, "
+        + "c.recipientEmail as recipientEmail, c.courseName as courseName, "
+        + "c.achievementTitle as achievementTitle, c.completionDate as completionDate, "
+        + "c.issuerName as issuerName, c.instructorName as instructorName, t.id as templateId "
+        + "from Certificate c left join c.template t "
+        + "where c.recipientEmail in :emails and c.status = :status")
+    List<ContentView> findContentByRecipientEmailIn(@Param("emails") Collection<String> emails,
+                                                    @Param("status") Certificate.CertificateStatus status);
+
+    interface IdView {
+        Long getId();
+
+        String getCertificateId();
+    }
+
+    /**
+     * The fields printed on a certificate
+     */
+    interface ContentView {
+        String getCertificateId();
+
+        String getRecipientName();
+
+        String getRecipientEmail();
+
+        String getCourseName();
+
+        String getAchievementTitle();
+
+        LocalDateTime getCompletionDate();
+
+        String getIssuerName();
+
+        String getInstructorName();
+
+        Long getTemplateId();
+    }
+
+    /**
+     * The columns shown in certificate listings; no file paths and no template
+     */
+    interface SummaryView {
+        Long getId();
+
+        String getCertificateId();
+
+        String getRecipientName();
+
+        String getRecipientEmail();
+
+        String getCourseName();
+
+        String getAchievementTitle();
+
+        LocalDateTime getCompletionDate();
+
+        String getIssuerName();
+
+        String getInstructorName();
+
+        LocalDateTime getIssuedDate();
+
+        boolean isEmailSent();
+
+        Certificate.CertificateStatus getStatus();
+    }
+}
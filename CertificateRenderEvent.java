@@ -0,0 +1,39 @@
+package com.certificate.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for laying out one certificate PDF
+ */
+@Name("com.certificate.CertificateRender")
+@Label("Certificate Render")
+@Category({"Certificate Generation", "Rendering"})
+@Description("Layout of one certificate PDF, including template assets and QR drawing")
+@StackTrace(false)
+class CertificateRenderEvent extends jdk.jfr.Event {
+
+    @Label("Certificate ID")
+    String certificateId;
+
+    @Label("Template ID")
+    @Description("0 when rendered without a template")
+    long templateId;
+
+    @Label("Stamped Template")
+    boolean stampTemplate;
+
+    @Label("Page Bytes")
+    @DataAmount
+    long pageBytes;
+
+    @Label("Asset Load Time")
+    @Description("Template asset lookup (fonts, background image; parsed on a cache miss) and per-document font setup")
+    @Timespan
+    long assetLoadTime;
+}
@@ -1,22 +1,36 @@
 package com.certificate.service;
 
+import com.certificate.dto.BatchGenerationResult;
+import com.certificate.dto.CertificatePage;
 import com.certificate.dto.CertificateRequest;
 import com.certificate.dto.CertificateResponse;
 import com.certificate.model.Certificate;
 import com.certificate.model.CertificateTemplate;
+import com.certificate.repository.CertificateQueryRepository;
 import com.certificate.repository.CertificateRepository;
 import com.certificate.repository.CertificateTemplateRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -28,99 +42,270 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CertificateService {
 
+    private static final int SCAN_PAGE_SIZE = 1000;
+
     private final CertificateRepository certificateRepository;
+    private final CertificateQueryRepository certificateQueryRepository;
     private final CertificateTemplateRepository templateRepository;
     private final PdfGenerationService pdfGenerationService;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
+    private final BatchWorkerPool batchWorkerPool;
+    private final CertificateIdAllocator certificateIdAllocator;
+    private final VerificationCache verificationCache;
+    private final CertificatePdfProvider certificatePdfProvider;
+    private final RenderedPdfCache renderedPdfCache;
+    private final CertificateStorage certificateStorage;
+    private final CertificateBatchWriter certificateBatchWriter;
+    private final IssuanceMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${certificate.verification.base-url}")
     private String verificationBaseUrl;
 
+    @Value("${certificate.listing.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${certificate.batch.stream-window:0}")
+    private int streamWindow;
+
+    @Value("${certificate.render.lazy:false}")
+    private boolean lazyRendering;
+
+    @Value("${certificate.email.attach-from-memory:true}")
+    private boolean attachFromMemory;
+
     /**
-     * Generate a single certificate
+     * Generate a single certificate.
+     * The ID is allocated and the PDF rendered before the transaction opens: reserving a new
+     * ID block takes a connection of its own, which must not be awaited while holding another.
      */
-    @Transactional
     public CertificateResponse generateCertificate(CertificateRequest request) throws IOException {
+        long started = System.nanoTime();
+        Certificate prepared = prepareCertificate(request);
+
+        Certificate certificate = transactionTemplate.execute(status -> {
+            // Save to database
+            long saveStarted = System.nanoTime();
+            Certificate saved = certificateRepository.save(prepared);
+            metrics.recordStage(IssuanceMetrics.Stage.SAVE, saveStarted);
+
+            // Queue email if requested; emailSent is recorded once the delivery worker has sent it
+            if (isEmailRequested(request)) {
+                long emailStarted = System.nanoTime();
+                emailOutboxService.enqueue(saved);
+                metrics.recordStage(IssuanceMetrics.Stage.EMAIL, emailStarted);
+            }
+            return saved;
+        });
+        verificationCache.registerIssued(certificate.getCertificateId());
+
+        metrics.recordIssuance(false, started);
+        log.info("Certificate generated successfully: {}", certificate.getCertificateId());
+        return convertToResponse(certificate);
+    }
+
+    /**
+     * Build and render a certificate without storing its row
+     */
+    private Certificate prepareCertificate(CertificateRequest request) throws IOException {
         log.info("Generating certificate for {}", request.getRecipientName());
 
         // Get template
+        long templateStarted = System.nanoTime();
         CertificateTemplate template = getTemplate(request.getTemplateId());
+        metrics.recordStage(IssuanceMetrics.Stage.TEMPLATE, templateStarted);
 
         // Create certificate entity
         Certificate certificate = buildCertificate(request, template);
 
         // Generate unique certificate ID
+        long idStarted = System.nanoTime();
         certificate.setCertificateId(generateUniqueCertificateId());
+        metrics.recordStage(IssuanceMetrics.Stage.ID, idStarted);
 
-        // Generate PDF
-        String pdfPath = pdfGenerationService.generateCertificatePdf(certificate, template);
-        certificate.setFilePath(pdfPath);
-
-        // Generate QR code
-        String qrPath = pdfGenerationService.generateQRCode(certificate.getCertificateId());
-        certificate.setQrCodePath(qrPath);
-
-        // Save to database
-        certificate = certificateRepository.save(certificate);
-
-        // Send email if requested
-        if (request.isSendEmail() && request.getRecipientEmail() != null) {
-            try {
-                emailService.sendCertificateEmail(certificate);
-                certificate.setEmailSent(true);
-                certificate.setEmailSentDate(LocalDateTime.now());
-                certificateRepository.save(certificate);
-            } catch (Exception e) {
-                log.error("Failed to send email for certificate {}", certificate.getCertificateId(), e);
-            }
+        // Generate PDF (also encodes the QR code once and records its PNG path, if written).
+        // In lazy mode only the row is stored; the PDF is rendered on first download or email.
+        // When an email is queued, the rendered bytes can be kept for its attachment.
+        if (!lazyRendering) {
+            String id = certificate.getCertificateId();
+            long renderStarted = System.nanoTime();
+            String pdfPath = pdfGenerationService.generateCertificatePdf(certificate, template,
+                isEmailRequested(request) && attachFromMemory ? pdf -> renderedPdfCache.put(id, pdf) : null);
+            metrics.recordStage(IssuanceMetrics.Stage.RENDER, renderStarted);
+            certificate.setFilePath(pdfPath);
         }
+        return certificate;
+    }
 
-        log.info("Certificate generated successfully: {}", certificate.getCertificateId());
-        return convertToResponse(certificate);
+    private boolean isEmailRequested(CertificateRequest request) {
+        return request.isSendEmail() && request.getRecipientEmail() != null;
     }
 
     /**
      * Generate multiple certificates from batch
      */
-    @Transactional
     public List<CertificateResponse> generateBatchCertificates(List<CertificateRequest> requests) {
-        return requests.stream()
-            .map(request -> {
-                try {
-                    return generateCertificate(request);
-                } catch (IOException e) {
-                    log.error("Failed to generate certificate for {}", request.getRecipientName(), e);
-                    return null;
-                }
-            })
-            .filter(response -> response != null)
-            .collect(Collectors.toList());
+        BatchGenerationResult result = generateBatch(requests);
+        result.getFailures().forEach(failure ->
+            log.warn("Batch row {} ({}) failed: {}",
+                failure.getRowNumber(), failure.getRecipientName(), failure.getError()));
+        return result.getCertificates();
+    }
+
+    /**
+     * Generate certificates in parallel on the batch worker pool.
+     * Rows are rendered independently and stored in group commits; a row that fails
+     * to store is retried alone, so one bad row neither rolls back nor blocks the others.
+     * Failures are reported per row.
+     */
+    public BatchGenerationResult generateBatch(List<CertificateRequest> requests) {
+        return generateBatch(requests, BatchProgressListener.NONE);
+    }
+
+    /**
+     * Generate certificates in parallel, reporting each finished row to the listener
+     */
+    public BatchGenerationResult generateBatch(List<CertificateRequest> requests, BatchProgressListener listener) {
+        log.info("Generating batch of {} certificates on {} workers",
+            requests.size(), batchWorkerPool.getParallelism());
+
+        StreamingBatch batch = openStreamingBatch(listener);
+        requests.forEach(batch::submit);
+        BatchGenerationResult result = batch.finish();
+
+        log.info("Batch complete: {} generated, {} failed",
+            result.getCertificates().size(), result.getFailures().size());
+        return result;
+    }
+
+    /**
+     * Open a batch that generates rows as they are submitted.
+     * Used by streaming imports so rendering starts before the whole file is parsed.
+     */
+    public StreamingBatch openStreamingBatch(BatchProgressListener listener) {
+        int window = streamWindow > 0 ? streamWindow : batchWorkerPool.getParallelism() * 2;
+        String batchKey = UUID.randomUUID().toString();
+        return new StreamingBatch(batchWorkerPool, request -> generateBatchRow(request, batchKey),
+            () -> emailOutboxService.releaseBatch(batchKey), listener, window);
+    }
+
+    /**
+     * Render one batch row on the calling worker, then store it through the group-commit writer
+     */
+    private CertificateResponse generateBatchRow(CertificateRequest request, String batchKey) {
+        long started = System.nanoTime();
+        try {
+            Certificate certificate = prepareCertificate(request);
+            // The writer stores the row and queues its email in one group commit; both count as the save stage
+            long saveStarted = System.nanoTime();
+            Certificate saved = certificateBatchWriter.write(certificate, isEmailRequested(request), batchKey);
+            metrics.recordStage(IssuanceMetrics.Stage.SAVE, saveStarted);
+            metrics.recordIssuance(true, started);
+            metrics.batchRowGenerated();
+            log.info("Certificate generated successfully: {}", saved.getCertificateId());
+            return convertToResponse(saved);
+        } catch (IOException e) {
+            metrics.batchRowFailed();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            metrics.batchRowFailed();
+            throw e;
+        }
     }
 
     /**
      * Verify certificate by ID
      */
     public Optional<Certificate> verifyCertificate(String certificateId) {
-        return certificateRepository.findByCertificateId(certificateId)
+        return verificationCache.lookup(certificateId, certificateRepository::findByCertificateId)
             .filter(cert -> cert.getStatus() == Certificate.CertificateStatus.ACTIVE);
     }
 
     /**
-     * Get all certificates
+     * Get all certificates.
+     * Unbounded; prefer {@link #getCertificates}, {@link #getCertificatesAfter} or {@link #forEachCertificate}.
      */
     public List<CertificateResponse> getAllCertificates() {
-        return certificateRepository.findAll().stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+        List<CertificateResponse> certificates = new ArrayList<>();
+        forEachCertificate(null, certificates::add);
+        return certificates;
     }
 
     /**
      * Get certificates by recipient email
      */
     public List<CertificateResponse> getCertificatesByEmail(String email) {
-        return certificateRepository.findByRecipientEmail(email).stream()
+        List<CertificateResponse> certificates = new ArrayList<>();
+        forEachCertificate(email, certificates::add);
+        return certificates;
+    }
+
+    /**
+     * One page of certificates (optionally of one recipient), in key order
+     */
+    public CertificatePage getCertificates(String email, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), clampPageSize(size), Sort.by("id"));
+        Page<CertificateQueryRepository.SummaryView> result = email == null
+            ? certificateQueryRepository.findSummaries(pageRequest)
+            : certificateQueryRepository.findSummariesByRecipientEmail(normalizeEmail(email), pageRequest);
+        return CertificatePage.builder()
+            .certificates(result.map(this::convertToResponse).getContent())
+            .size(result.getSize())
+            .page(result.getNumber())
+            .totalElements(result.getTotalElements())
+            .totalPages(result.getTotalPages())
+            .build();
+    }
+
+    /**
+     * Certificates with a key greater than the cursor (optionally of one recipient).
+     * Unlike offset pages, the cost does not grow with the position in the listing.
+     */
+    public CertificatePage getCertificatesAfter(String email, long after, int size) {
+        int pageSize = clampPageSize(size);
+        List<CertificateQueryRepository.SummaryView> rows = findSummariesAfter(email, after, pageSize);
+        List<CertificateResponse> certificates = rows.stream()
             .map(this::convertToResponse)
             .collect(Collectors.toList());
+        return CertificatePage.builder()
+            .certificates(certificates)
+            .size(pageSize)
+            .nextCursor(rows.size() == pageSize ? rows.get(rows.size() - 1).getId() : null)
+            .build();
+    }
+
+    /**
+     * Visit every certificate (optionally of one recipient) in key order, one keyset page at a time
+     */
+    public void forEachCertificate(String email, Consumer<CertificateResponse> action) {
+        long after = 0;
+        List<CertificateQueryRepository.SummaryView> rows;
+        do {
+            rows = findSummariesAfter(email, after, SCAN_PAGE_SIZE);
+            for (CertificateQueryRepository.SummaryView row : rows) {
+                action.accept(convertToResponse(row));
+                after = row.getId();
+            }
+        } while (rows.size() == SCAN_PAGE_SIZE);
+    }
+
+    private List<CertificateQueryRepository.SummaryView> findSummariesAfter(String email, long after, int size) {
+        PageRequest pageRequest = PageRequest.of(0, size);
+        return email == null
+            ? certificateQueryRepository.findSummariesAfter(after, pageRequest)
+            : certificateQueryRepository.findSummariesByRecipientEmailAfter(normalizeEmail(email), after, pageRequest);
+    }
+
+    private int clampPageSize(int size) {
+        return Math.min(Math.max(size, 1), maxPageSize);
+    }
+
+    /**
+     * Email as it is stored and looked up: trimmed and in lower case, so lookups can use the
+     * plain, indexed column
+     */
+    static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 
     /**
@@ -132,32 +317,65 @@ public class CertificateService {
     }
 
     /**
-     * Revoke a certificate
+     * Get the PDF of an active certificate, rendering it first if it was issued lazily.
+     * The certificate and its template are loaded in a short transaction and rendered after it,
+     * so a lazy render does not hold a pooled connection.
+     */
+    public Optional<CertificatePdf> getCertificatePdf(Long id) throws IOException {
+        Optional<Certificate> certificate = transactionTemplate.execute(status -> certificateRepository.findById(id)
+            .filter(cert -> cert.getStatus() == Certificate.CertificateStatus.ACTIVE)
+            .map(cert -> {
+                Hibernate.initialize(cert.getTemplate());
+                return cert;
+            }));
+        if (certificate.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(certificatePdfProvider.describe(certificate.get()));
+    }
+
+    /**
+     * Revoke a certificate; returns false if it does not exist or was already revoked
      */
     @Transactional
-    public void revokeCertificate(String certificateId) {
-        certificateRepository.findByCertificateId(certificateId)
-            .ifPresent(certificate -> {
-                certificate.setStatus(Certificate.CertificateStatus.REVOKED);
-                certificateRepository.save(certificate);
-                log.info("Certificate revoked: {}", certificateId);
-            });
+    public boolean revokeCertificate(String certificateId) {
+        Certificate certificate = certificateRepository.findByCertificateId(certificateId)
+            .filter(found -> found.getStatus() != Certificate.CertificateStatus.REVOKED)
+            .orElse(null);
+        if (certificate == null) {
+            // Revoking again would release the stored files a second time
+            return false;
+        }
+        certificate.setStatus(Certificate.CertificateStatus.REVOKED);
+        certificateRepository.save(certificate);
+        verificationCache.revoke(certificateId);
+        renderedPdfCache.invalidate(certificateId);
+        releaseStoredFilesAfterCommit(certificate);
+        log.info("Certificate revoked: {}", certificateId);
+        return true;
+    }
+
+    /**
+     * Let storage reclaim a revoked certificate's files once the revocation is committed
+     */
+    private void releaseStoredFilesAfterCommit(Certificate certificate) {
+        String filePath = certificate.getFilePath();
+        String qrCodePath = certificate.getQrCodePath();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                certificateStorage.release(filePath);
+                certificateStorage.release(qrCodePath);
+            }
+        });
     }
 
     /**
      * Generate unique certificate ID
      */
     private String generateUniqueCertificateId() {
-        String certificateId;
-        do {
-            // Format: CERT-XXXX-XXXX
-            String uuid = UUID.randomUUID().toString().replace("-", "").toUpperCase();
-            certificateId = String.format("CERT-%s-%s", 
-                uuid.substring(0, 4), 
-                uuid.substring(4, 8));
-        } while (certificateRepository.existsByCertificateId(certificateId));
-        
-        return certificateId;
+        // Format: CERT-XXXX-XXXX, allocated from a reserved block without a per-ID query
+        return certificateIdAllocator.nextId();
     }
 
     /**
@@ -192,7 +410,7 @@ public class CertificateService {
         
         return Certificate.builder()
             .recipientName(request.getRecipientName())
-            .recipientEmail(request.getRecipientEmail())
+            .recipientEmail(normalizeEmail(request.getRecipientEmail()))
             .courseName(request.getCourseName())
             .achievementTitle(request.getAchievementTitle())
             .completionDate(completionDateTime)
@@ -204,6 +422,28 @@ public class CertificateService {
             .build();
     }
 
+    /**
+     * Convert a listing projection to response DTO
+     */
+    private CertificateResponse convertToResponse(CertificateQueryRepository.SummaryView certificate) {
+        return CertificateResponse.builder()
+            .id(certificate.getId())
+            .certificateId(certificate.getCertificateId())
+            .recipientName(certificate.getRecipientName())
+            .recipientEmail(certificate.getRecipientEmail())
+            .courseName(certificate.getCourseName())
+            .achievementTitle(certificate.getAchievementTitle())
+            .completionDate(certificate.getCompletionDate())
+            .issuerName(certificate.getIssuerName())
+            .instructorName(certificate.getInstructorName())
+            .issuedDate(certificate.getIssuedDate())
+            .emailSent(certificate.isEmailSent())
+            .downloadUrl("/api/certificates/" + certificate.getId() + "/pdf")
+            .verificationUrl(verificationBaseUrl + "/" + certificate.getCertificateId())
+            .status(certificate.getStatus().name())
+            .build();
+    }
+
     /**
      * Convert entity to response DTO
      */
@@ -220,7 +460,7 @@ public class CertificateService {
             .instructorName(certificate.getInstructorName())
             .issuedDate(certificate.getIssuedDate())
             .emailSent(certificate.isEmailSent())
-            .downloadUrl("/api/certificates/" + certificate.getId() + "/download")
+            .downloadUrl("/api/certificates/" + certificate.getId() + "/pdf")
             .verificationUrl(verificationBaseUrl + "/" + certificate.getCertificateId())
             .status(certificate.getStatus().name())
             .build();
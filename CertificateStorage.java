@@ -0,0 +1,57 @@
+package com.certificate.service;
+
+import com.certificate.dto.StorageCompactionResult;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Storage backend for generated certificate files (PDFs, QR code images).
+ * Locations returned by {@link #store} are what gets recorded in
+ * {@code Certificate.filePath} / {@code qrCodePath}.
+ */
+public interface CertificateStorage {
+
+    @FunctionalInterface
+    interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Store content produced by the writer and return its location.
+     * The content only becomes visible once completely written.
+     */
+    String store(String extension, ContentWriter writer) throws IOException;
+
+    /**
+     * Open stored content, or null if nothing is stored at the location
+     */
+    Resource load(String location);
+
+    /**
+     * Whether the location belongs to this backend's layout (as opposed to a legacy path)
+     */
+    boolean isManaged(String location);
+
+    /**
+     * SHA-256 (hex) of the content when the location itself is named by it, otherwise null
+     */
+    default String contentHash(String location) {
+        return null;
+    }
+
+    /**
+     * Drop one reference to stored content (e.g. its certificate was revoked).
+     * Backends that cannot tell whether content is shared keep it.
+     */
+    default void release(String location) {
+    }
+
+    /**
+     * Reclaim space held by released content
+     */
+    default StorageCompactionResult compact() throws IOException {
+        return StorageCompactionResult.builder().build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.certificate.repository;
+
+import com.certificate.model.Certificate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Queries over the stored-file columns of certificates, used by storage maintenance
+ */
+public interface CertificateStorageRepository extends Repository<Certificate, Long> {
+
+    /**
+     * File locations of rows after the given key, in key order
+     */
+    @Query("select c.id as id, c.filePath as filePath, c.qrCodePath as qrCodePath from Certificate c "
+        + "where c.id > :afterId order by c.id")
+    List<StoragePathsView> findStoragePathsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Point a certificate at new file locations without touching its other columns
+     */
+    @Modifying
+    @Query("update Certificate c set c.filePath = :filePath, c.qrCodePath = :qrCodePath where c.id = :id")
+    int updateStoragePaths(@Param("id") Long id,
+                           @Param("filePath") String filePath,
+                           @Param("qrCodePath") String qrCodePath);
+
+    interface StoragePathsView {
+        Long getId();
+
+        String getFilePath();
+
+        String getQrCodePath();
+    }
+}
@@ -0,0 +1,293 @@
+package com.certificate.service;
+
+import com.certificate.model.Certificate;
+import com.certificate.model.EmailOutboxMessage;
+import com.certificate.repository.CertificateDeliveryRepository;
+import com.certificate.repository.CertificateRepository;
+import com.certificate.repository.EmailOutboxRepository;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the email outbox.
+ *
+ * Due messages are claimed with a conditional update, so several instances can drain the same table;
+ * a claim expires after the lease, so messages held by a crashed worker are picked up again.
+ * Messages held back for a batch are claimed per recipient and coalesced into one email with all of
+ * the recipient's certificates attached (up to the configured number per email).
+ * Each claimed batch goes out over one SMTP connection, paced to the configured rate.
+ * Failures are retried with exponential backoff until the attempt limit, and a certificate is
+ * only marked as emailed once its message was accepted by the mail server.
+ */
+@Component
+@Slf4j
+public class EmailDeliveryWorker {
+
+    private static final Set<EmailOutboxMessage.Status> CLAIMABLE =
+        EnumSet.of(EmailOutboxMessage.Status.PENDING, EmailOutboxMessage.Status.SENDING);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final CertificateRepository certificateRepository;
+    private final CertificateDeliveryRepository certificateDeliveryRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final double ratePerSecond;
+    private final int maxAttempts;
+    private final long retryBaseSeconds;
+    private final long leaseSeconds;
+    private final int maxCertificatesPerEmail;
+
+    private long nextSendAt;
+
+    public EmailDeliveryWorker(EmailOutboxRepository emailOutboxRepository,
+                               CertificateRepository certificateRepository,
+                               CertificateDeliveryRepository certificateDeliveryRepository,
+                               EmailService emailService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${certificate.email.outbox.enabled:true}") boolean enabled,
+                               @Value("${certificate.email.outbox.batch-size:50}") int batchSize,
+                               @Value("${certificate.email.outbox.rate-per-second:10}") double ratePerSecond,
+                               @Value("${certificate.email.outbox.max-attempts:6}") int maxAttempts,
+                               @Value("${certificate.email.outbox.retry-base-seconds:30}") long retryBaseSeconds,
+                               @Value("${certificate.email.outbox.lease-seconds:300}") long leaseSeconds,
+                               @Value("${certificate.email.coalesce.max-certificates:20}") int maxCertificatesPerEmail) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.certificateRepository = certificateRepository;
+        this.certificateDeliveryRepository = certificateDeliveryRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.ratePerSecond = ratePerSecond;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseSeconds = retryBaseSeconds;
+        this.leaseSeconds = leaseSeconds;
+        this.maxCertificatesPerEmail = Math.max(1, maxCertificatesPerEmail);
+    }
+
+    /**
+     * Deliver everything that is due
+     */
+    @Scheduled(fixedDelayString = "${certificate.email.outbox.poll-interval-ms:2000}")
+    public void drain() {
+        if (!enabled) {
+            return;
+        }
+        List<EmailOutboxMessage> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+            }
+        } while (batch.size() >= batchSize);
+    }
+
+    private List<EmailOutboxMessage> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+            Map<Long, EmailOutboxMessage> claimed = new LinkedHashMap<>();
+            Set<String> groups = new HashSet<>();
+            for (EmailOutboxMessage message : emailOutboxRepository.findDue(CLAIMABLE, now, PageRequest.of(0, batchSize))) {
+                if (claimed.containsKey(message.getId()) || !claim(message, now, leaseUntil)) {
+                    continue;
+                }
+                claimed.put(message.getId(), message);
+                // Pull in the recipient's other due messages from the same batch
+                if (message.getBatchKey() != null && groups.add(groupKey(message))) {
+                    for (EmailOutboxMessage sibling : emailOutboxRepository.findDueInBatch(
+                            message.getBatchKey(), message.getRecipientEmail(), CLAIMABLE, now)) {
+                        if (!claimed.containsKey(sibling.getId()) && claim(sibling, now, leaseUntil)) {
+                            claimed.put(sibling.getId(), sibling);
+                        }
+                    }
+                }
+            }
+            return new ArrayList<>(claimed.values());
+        });
+    }
+
+    private boolean claim(EmailOutboxMessage message, LocalDateTime now, LocalDateTime leaseUntil) {
+        return emailOutboxRepository.claim(message.getId(), CLAIMABLE,
+            EmailOutboxMessage.Status.SENDING, now, leaseUntil) == 1;
+    }
+
+    private static String groupKey(EmailOutboxMessage message) {
+        return message.getBatchKey() == null
+            ? "#" + message.getId()
+            : message.getBatchKey() + "|" + message.getRecipientEmail().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Split claimed messages into emails: one per recipient and batch, capped in size
+     */
+    private List<List<EmailOutboxMessage>> coalesce(List<EmailOutboxMessage> batch) {
+        Map<String, List<EmailOutboxMessage>> groups = new LinkedHashMap<>();
+        for (EmailOutboxMessage message : batch) {
+            groups.computeIfAbsent(groupKey(message), key -> new ArrayList<>()).add(message);
+        }
+        List<List<EmailOutboxMessage>> emails = new ArrayList<>();
+        for (List<EmailOutboxMessage> group : groups.values()) {
+            for (int i = 0; i < group.size(); i += maxCertificatesPerEmail) {
+                emails.add(group.subList(i, Math.min(i + maxCertificatesPerEmail, group.size())));
+            }
+        }
+        return emails;
+    }
+
+    private void deliver(List<EmailOutboxMessage> batch) {
+        Map<Long, Certificate> certificates = certificateRepository.findAllById(
+                batch.stream().map(EmailOutboxMessage::getCertificateId).collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(Certificate::getId, Function.identity()));
+
+        Map<MimeMessage, List<EmailOutboxMessage>> outgoing = new LinkedHashMap<>();
+        Map<Long, Exception> failures = new LinkedHashMap<>();
+        List<EmailOutboxMessage> cancelled = new ArrayList<>();
+
+        for (List<EmailOutboxMessage> email : coalesce(batch)) {
+            List<EmailOutboxMessage> included = new ArrayList<>();
+            List<Certificate> attached = new ArrayList<>();
+            for (EmailOutboxMessage message : email) {
+                Certificate certificate = certificates.get(message.getCertificateId());
+                if (certificate == null || certificate.getStatus() != Certificate.CertificateStatus.ACTIVE) {
+                    cancelled.add(message);
+                } else {
+                    included.add(message);
+                    attached.add(certificate);
+                }
+            }
+            if (included.isEmpty()) {
+                continue;
+            }
+            try {
+                outgoing.put(emailService.createCertificatesMessage(attached), included);
+            } catch (Exception e) {
+                included.forEach(message -> failures.put(message.getId(), e));
+            }
+        }
+
+        if (!outgoing.isEmpty()) {
+            awaitRate(outgoing.size());
+            try {
+                emailService.send(new ArrayList<>(outgoing.keySet()));
+            } catch (MailSendException e) {
+                Map<Object, Exception> failed = e.getFailedMessages();
+                for (Map.Entry<MimeMessage, List<EmailOutboxMessage>> entry : outgoing.entrySet()) {
+                    // Without per-message detail (e.g. connection failure) the whole batch failed
+                    Exception cause = failed.isEmpty() ? e : failed.get(entry.getKey());
+                    if (cause != null) {
+                        entry.getValue().forEach(message -> failures.put(message.getId(), cause));
+                    }
+                }
+            } catch (MailException e) {
+                outgoing.values().forEach(email -> email.forEach(message -> failures.put(message.getId(), e)));
+            }
+        }
+
+        List<EmailOutboxMessage> sent = outgoing.values().stream()
+            .flatMap(List::stream)
+            .filter(message -> !failures.containsKey(message.getId()))
+            .collect(Collectors.toList());
+        List<EmailOutboxMessage> failed = batch.stream()
+            .filter(message -> failures.containsKey(message.getId()))
+            .collect(Collectors.toList());
+        record(sent, failed, failures, cancelled);
+        log.info("Email batch delivered: {} certificates sent in {} emails, {} failed, {} cancelled",
+            sent.size(), outgoing.size(), failures.size(), cancelled.size());
+    }
+
+    private void record(List<EmailOutboxMessage> sent, List<EmailOutboxMessage> failed,
+                        Map<Long, Exception> failures, List<EmailOutboxMessage> cancelled) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutboxMessage> updated = new ArrayList<>();
+
+        for (EmailOutboxMessage message : sent) {
+            message.setStatus(EmailOutboxMessage.Status.SENT);
+            message.setAttempts(message.getAttempts() + 1);
+            message.setSentAt(now);
+            message.setLastError(null);
+            updated.add(message);
+        }
+        for (EmailOutboxMessage message : failed) {
+            Exception error = failures.get(message.getId());
+            int attempts = message.getAttempts() + 1;
+            message.setAttempts(attempts);
+            message.setLastError(truncate(error.getMessage()));
+            if (attempts >= maxAttempts) {
+                message.setStatus(EmailOutboxMessage.Status.FAILED);
+                log.error("Giving up on email to {} after {} attempts", message.getRecipientEmail(), attempts, error);
+            } else {
+                message.setStatus(EmailOutboxMessage.Status.PENDING);
+                message.setNextAttemptAt(now.plusSeconds(retryBaseSeconds << Math.min(attempts - 1, 10)));
+                log.warn("Email to {} failed (attempt {}), retrying at {}",
+                    message.getRecipientEmail(), attempts, message.getNextAttemptAt());
+            }
+            updated.add(message);
+        }
+        for (EmailOutboxMessage message : cancelled) {
+            message.setStatus(EmailOutboxMessage.Status.CANCELLED);
+            message.setLastError("Certificate is no longer active");
+            updated.add(message);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            emailOutboxRepository.saveAll(updated);
+            if (!sent.isEmpty()) {
+                certificateDeliveryRepository.markEmailSent(
+                    sent.stream().map(EmailOutboxMessage::getCertificateId).collect(Collectors.toList()), now);
+            }
+        });
+    }
+
+    /**
+     * Pace sends so that on average no more than ratePerSecond messages go out
+     */
+    private void awaitRate(int messages) {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long start = Math.max(now, nextSendAt);
+        nextSendAt = start + (long) (messages * TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        if (start > now) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(start - now);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,38 @@
+package com.certificate.controller;
+
+import com.certificate.dto.EmailOutboxStats;
+import com.certificate.service.EmailOutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST API for monitoring certificate email delivery
+ */
+@RestController
+@RequestMapping("/api/admin/email-outbox")
+@RequiredArgsConstructor
+public class EmailOutboxController {
+
+    private final EmailOutboxService emailOutboxService;
+
+    /**
+     * Get the number of queued, sent and failed emails
+     */
+    @GetMapping
+    public ResponseEntity<EmailOutboxStats> getStats() {
+        return ResponseEntity.ok(emailOutboxService.getStats());
+    }
+
+    /**
+     * Retry emails that exhausted their attempts
+     */
+    @PostMapping("/retry-failed")
+    public ResponseEntity<EmailOutboxStats> retryFailed() {
+        emailOutboxService.requeueFailed();
+        return ResponseEntity.ok(emailOutboxService.getStats());
+    }
+}
@@ -0,0 +1,73 @@
+package com.certificate.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A certificate email waiting for (or done with) delivery.
+ * Rows are written in the same transaction as the certificate and drained by the delivery worker.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_due", columnList = "status, nextAttemptAt"),
+    @Index(name = "idx_email_outbox_batch", columnList = "batchKey, recipientEmail")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutboxMessage {
+
+    /** Pooled sequence, so that Hibernate can batch the inserts of a group commit */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_outbox_seq")
+    @SequenceGenerator(name = "email_outbox_seq", sequenceName = "email_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    /** Primary key of the certificate to deliver */
+    @Column(nullable = false)
+    private Long certificateId;
+
+    @Column(nullable = false)
+    private String recipientEmail;
+
+    /** Batch the certificate was issued in; a recipient's emails from one batch are sent together */
+    @Column(length = 36)
+    private String batchKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    private int attempts;
+
+    /** When the message is due; while SENDING, when the worker's claim expires */
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    public enum Status {
+        PENDING, SENDING, SENT, FAILED, CANCELLED
+    }
+}
@@ -0,0 +1,70 @@
+package com.certificate.repository;
+
+import com.certificate.model.EmailOutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    /**
+     * Messages in the given states that are due, oldest first
+     */
+    @Query("select m from EmailOutboxMessage m where m.status in :statuses and m.nextAttemptAt <= :now "
+        + "order by m.nextAttemptAt, m.id")
+    List<EmailOutboxMessage> findDue(@Param("statuses") Collection<EmailOutboxMessage.Status> statuses,
+                                     @Param("now") LocalDateTime now,
+                                     Pageable pageable);
+
+    /**
+     * Due messages of one recipient from one batch
+     */
+    @Query("select m from EmailOutboxMessage m where m.batchKey = :batchKey and m.recipientEmail = :recipientEmail "
+        + "and m.status in :statuses and m.nextAttemptAt <= :now order by m.id")
+    List<EmailOutboxMessage> findDueInBatch(@Param("batchKey") String batchKey,
+                                            @Param("recipientEmail") String recipientEmail,
+                                            @Param("statuses") Collection<EmailOutboxMessage.Status> statuses,
+                                            @Param("now") LocalDateTime now);
+
+    /**
+     * Make a batch's held messages due now
+     */
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.nextAttemptAt = :now "
+        + "where m.batchKey = :batchKey and m.status = :pending and m.nextAttemptAt > :now")
+    int releaseBatch(@Param("batchKey") String batchKey,
+                     @Param("pending") EmailOutboxMessage.Status pending,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * Claim a due message for sending until the lease expires; returns 0 if another worker got it first
+     */
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.status = :sending, m.nextAttemptAt = :leaseUntil "
+        + "where m.id = :id and m.status in :statuses and m.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id,
+              @Param("statuses") Collection<EmailOutboxMessage.Status> statuses,
+              @Param("sending") EmailOutboxMessage.Status sending,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Put failed messages back in the queue
+     */
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.status = :pending, m.attempts = 0, m.nextAttemptAt = :now "
+        + "where m.status = :failed")
+    int requeue(@Param("failed") EmailOutboxMessage.Status failed,
+                @Param("pending") EmailOutboxMessage.Status pending,
+                @Param("now") LocalDateTime now);
+
+    long countByStatus(EmailOutboxMessage.Status status);
+}
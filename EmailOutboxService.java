@@ -0,0 +1,128 @@
+package com.certificate.service;
+
+import com.certificate.dto.EmailOutboxStats;
+import com.certificate.model.Certificate;
+import com.certificate.model.EmailOutboxMessage;
+import com.certificate.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Queues certificate emails for the delivery worker.
+ * Enqueueing joins the caller's transaction, so a message exists exactly when its certificate does.
+ * Emails from a batch are held until the batch finishes, so the worker can coalesce them per recipient.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${certificate.email.coalesce.enabled:true}")
+    private boolean coalesce;
+
+    @Value("${certificate.email.coalesce.hold-seconds:900}")
+    private long holdSeconds;
+
+    /**
+     * Expose the queue depth (messages waiting, being sent, or out of retries) as a gauge.
+     * Each is one count query, run when the gauge is read.
+     */
+    @PostConstruct
+    void registerQueueDepth() {
+        for (EmailOutboxMessage.Status status : List.of(EmailOutboxMessage.Status.PENDING,
+                EmailOutboxMessage.Status.SENDING, EmailOutboxMessage.Status.FAILED)) {
+            Gauge.builder("certificate.email.outbox.depth", emailOutboxRepository, repository -> repository.countByStatus(status))
+                .description("Outbound certificate emails by status")
+                .tag("status", status.name().toLowerCase())
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Queue the certificate email for delivery
+     */
+    @Transactional
+    public EmailOutboxMessage enqueue(Certificate certificate) {
+        return enqueue(certificate, null);
+    }
+
+    /**
+     * Queue the certificate email as part of a batch.
+     * With coalescing on, it is held until {@link #releaseBatch} (or at most the hold time),
+     * so that all of a recipient's certificates from the batch go out in one email.
+     */
+    @Transactional
+    public EmailOutboxMessage enqueue(Certificate certificate, String batchKey) {
+        log.debug("Queued email for certificate {}", certificate.getCertificateId());
+        return emailOutboxRepository.save(newMessage(certificate, batchKey, LocalDateTime.now()));
+    }
+
+    /**
+     * Queue the emails of several certificates of one batch with a single batched insert
+     */
+    @Transactional
+    public List<EmailOutboxMessage> enqueueAll(List<Certificate> certificates, String batchKey) {
+        LocalDateTime now = LocalDateTime.now();
+        return emailOutboxRepository.saveAll(certificates.stream()
+            .map(certificate -> newMessage(certificate, batchKey, now))
+            .collect(Collectors.toList()));
+    }
+
+    private EmailOutboxMessage newMessage(Certificate certificate, String batchKey, LocalDateTime now) {
+        boolean hold = coalesce && batchKey != null;
+        return EmailOutboxMessage.builder()
+            .certificateId(certificate.getId())
+            .recipientEmail(certificate.getRecipientEmail())
+            .batchKey(hold ? batchKey : null)
+            .status(EmailOutboxMessage.Status.PENDING)
+            .nextAttemptAt(hold ? now.plusSeconds(holdSeconds) : now)
+            .createdAt(now)
+            .build();
+    }
+
+    /**
+     * Release the held emails of a finished batch
+     */
+    @Transactional
+    public void releaseBatch(String batchKey) {
+        if (!coalesce) {
+            return;
+        }
+        int released = emailOutboxRepository.releaseBatch(batchKey, EmailOutboxMessage.Status.PENDING, LocalDateTime.now());
+        log.info("Released {} emails of batch {}", released, batchKey);
+    }
+
+    /**
+     * Put messages that exhausted their retries back in the queue
+     */
+    @Transactional
+    public int requeueFailed() {
+        int requeued = emailOutboxRepository.requeue(
+            EmailOutboxMessage.Status.FAILED, EmailOutboxMessage.Status.PENDING, LocalDateTime.now());
+        log.info("Requeued {} failed emails", requeued);
+        return requeued;
+    }
+
+    public EmailOutboxStats getStats() {
+        return EmailOutboxStats.builder()
+            .pending(emailOutboxRepository.countByStatus(EmailOutboxMessage.Status.PENDING))
+            .sending(emailOutboxRepository.countByStatus(EmailOutboxMessage.Status.SENDING))
+            .sent(emailOutboxRepository.countByStatus(EmailOutboxMessage.Status.SENT))
+            .failed(emailOutboxRepository.countByStatus(EmailOutboxMessage.Status.FAILED))
+            .cancelled(emailOutboxRepository.countByStatus(EmailOutboxMessage.Status.CANCELLED))
+            .build();
+    }
+}
@@ -0,0 +1,21 @@
+package com.certificate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of outbox messages in each delivery state
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutboxStats {
+    private long pending;
+    private long sending;
+    private long sent;
+    private long failed;
+    private long cancelled;
+}
@@ -0,0 +1,22 @@
+package com.certificate.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for sending a group of emails over one SMTP connection
+ */
+@Name("com.certificate.EmailSend")
+@Label("Email Send")
+@Category({"Certificate Generation", "Email"})
+@StackTrace(false)
+class EmailSendEvent extends jdk.jfr.Event {
+
+    @Label("Messages")
+    int messages;
+
+    @Label("Failed Messages")
+    int failed;
+}
@@ -6,14 +6,15 @@ import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import java.io.IOException;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 /**
  * Email Service for certificate delivery
@@ -25,19 +26,124 @@ import java.time.format.DateTimeFormatter;
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final CertificatePdfProvider certificatePdfProvider;
 
     @Value("${certificate.email.from}")
     private String fromEmail;
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMMM dd, yyyy");
 
+    /** Compiled once; see {@link EmailTemplate} */
+    private static final EmailTemplate CERTIFICATE_EMAIL = EmailTemplate.compile("""
+        <!DOCTYPE html>
+        <html>
+        <head>
+            <style>
+                body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
+                .container { max-width: 600px; margin: 0 auto; padding: 20px; }
+                .header { background-color: #0066cc; color: white; padding: 20px; text-align: center; }
+                .content { padding: 20px; background-color: #f9f9f9; }
+                .footer { padding: 20px; text-align: center; font-size: 12px; color: #666; }
+                .button { display: inline-block; padding: 10px 20px; background-color: #0066cc; 
+                          color: white; text-decoration: none; border-radius: 5px; margin: 10px 0; }
+                .details { background-color: white; padding: 15px; margin: 15px 0; border-left: 4px solid #0066cc; }
+            </style>
+        </head>
+        <body>
+            <div class="container">
+                <div class="header">
+                    <h1>🎓 Congratulations, {{recipientName}}!</h1>
+                </div>
+                <div class="content">
+                    <p>We are pleased to inform you that you have successfully completed:</p>
+                    <div class="details">
+                        <strong>Course:</strong> {{courseName}}<br>
+                        <strong>Completion Date:</strong> {{completionDate}}<br>
+                        <strong>Certificate ID:</strong> {{certificateId}}
+                    </div>
+                    <p>Your official certificate is attached to this email. You can also verify your certificate 
+                       online at any time.</p>
+                    <p>Keep this certificate safe as proof of your achievement!</p>
+                    <p style="margin-top: 30px;">
+                        <strong>Best regards,</strong><br>
+                        {{issuerName}}
+                    </p>
+                </div>
+                <div class="footer">
+                    <p>This is an automated message. Please do not reply to this email.</p>
+                    <p>Certificate ID: {{certificateId}}</p>
+                </div>
+            </div>
+        </body>
+        </html>
+        """,
+        "recipientName", "courseName", "completionDate", "certificateId", "issuerName");
+
+    private static final EmailTemplate CERTIFICATES_EMAIL = EmailTemplate.compile("""
+        <!DOCTYPE html>
+        <html>
+        <head>
+            <style>
+                body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
+                .container { max-width: 600px; margin: 0 auto; padding: 20px; }
+                .header { background-color: #0066cc; color: white; padding: 20px; text-align: center; }
+                .content { padding: 20px; background-color: #f9f9f9; }
+                .footer { padding: 20px; text-align: center; font-size: 12px; color: #666; }
+                .details { background-color: white; padding: 15px; margin: 15px 0; border-left: 4px solid #0066cc; }
+            </style>
+        </head>
+        <body>
+            <div class="container">
+                <div class="header">
+                    <h1>🎓 Congratulations, {{recipientName}}!</h1>
+                </div>
+                <div class="content">
+                    <p>We are pleased to inform you that you have successfully completed {{count}} courses:</p>
+                    {{details}}
+                    <p>Your official certificates are attached to this email, one PDF per course. You can also
+                       verify each certificate online at any time.</p>
+                    <p>Keep these certificates safe as proof of your achievements!</p>
+                    <p style="margin-top: 30px;">
+                        <strong>Best regards,</strong><br>
+                        {{issuerName}}
+                    </p>
+                </div>
+                <div class="footer">
+                    <p>This is an automated message. Please do not reply to this email.</p>
+                </div>
+            </div>
+        </body>
+        </html>
+        """,
+        "recipientName", "count", "details", "issuerName");
+
+    private static final EmailTemplate CERTIFICATE_DETAILS = EmailTemplate.compile("""
+                    <div class="details">
+                        <strong>Course:</strong> {{courseName}}<br>
+                        <strong>Completion Date:</strong> {{completionDate}}<br>
+                        <strong>Certificate ID:</strong> {{certificateId}}
+                    </div>
+        """,
+        "courseName", "completionDate", "certificateId");
+
+    private static final EmailTemplate BATCH_NOTIFICATION_EMAIL = EmailTemplate.compile("""
+        <html>
+        <body style="font-family: Arial, sans-serif;">
+            <h2>Batch Certificate Generation Summary</h2>
+            <p><strong>Total Certificates Requested:</strong> {{total}}</p>
+            <p><strong>Successfully Generated:</strong> {{succeeded}}</p>
+            <p><strong>Failed:</strong> {{failed}}</p>
+            <p>All generated certificates have been emailed to their respective recipients.</p>
+        </body>
+        </html>
+        """,
+        "total", "succeeded", "failed");
+
     /**
-     * Send certificate via email
+     * Build the certificate email, with the PDF attached (kept from generation, read from storage,
+     * or rendered now if the certificate was issued lazily)
      */
-    @Async
-    public void sendCertificateEmail(Certificate certificate) throws MessagingException {
-        log.info("Sending certificate email to {}", certificate.getRecipientEmail());
-
+    public MimeMessage createCertificateMessage(Certificate certificate) throws MessagingException, IOException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
@@ -48,67 +154,76 @@ public class EmailService {
         String emailContent = buildEmailContent(certificate);
         helper.setText(emailContent, true);
 
-        // Attach PDF
-        FileSystemResource file = new FileSystemResource(new File(certificate.getFilePath()));
-        helper.addAttachment(certificate.getCertificateId() + ".pdf", file);
+        helper.addAttachment(certificate.getCertificateId() + ".pdf", certificatePdfProvider.getAttachment(certificate));
+        return message;
+    }
 
-        mailSender.send(message);
-        log.info("Certificate email sent successfully to {}", certificate.getRecipientEmail());
+    /**
+     * Build one email carrying several certificates of the same recipient, each PDF attached
+     */
+    public MimeMessage createCertificatesMessage(List<Certificate> certificates) throws MessagingException, IOException {
+        if (certificates.size() == 1) {
+            return createCertificateMessage(certificates.get(0));
+        }
+        Certificate first = certificates.get(0);
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(fromEmail);
+        helper.setTo(first.getRecipientEmail());
+        helper.setSubject("Your Certificates - " + certificates.size() + " courses");
+
+        StringBuilder details = new StringBuilder();
+        for (Certificate certificate : certificates) {
+            details.append(CERTIFICATE_DETAILS.render(
+                certificate.getCourseName(),
+                certificate.getCompletionDate().format(DATE_FORMATTER),
+                certificate.getCertificateId()));
+        }
+        helper.setText(CERTIFICATES_EMAIL.render(
+            first.getRecipientName(),
+            certificates.size(),
+            new EmailTemplate.Html(details.toString()),
+            first.getIssuerName() != null ? first.getIssuerName() : "Certificate Authority"
+        ), true);
+
+        for (Certificate certificate : certificates) {
+            helper.addAttachment(certificate.getCertificateId() + ".pdf", certificatePdfProvider.getAttachment(certificate));
+        }
+        return message;
     }
 
     /**
-     * Build HTML email content
+     * Send messages over a single SMTP connection.
+     * A {@link org.springframework.mail.MailSendException} lists the messages that failed.
      */
-    private String buildEmailContent(Certificate certificate) {
-        return String.format("""
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <style>
-                    body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
-                    .container { max-width: 600px; margin: 0 auto; padding: 20px; }
-                    .header { background-color: #0066cc; color: white; padding: 20px; text-align: center; }
-                    .content { padding: 20px; background-color: #f9f9f9; }
-                    .footer { padding: 20px; text-align: center; font-size: 12px; color: #666; }
-                    .button { display: inline-block; padding: 10px 20px; background-color: #0066cc; 
-                              color: white; text-decoration: none; border-radius: 5px; margin: 10px 0; }
-                    .details { background-color: white; padding: 15px; margin: 15px 0; border-left: 4px solid #0066cc; }
-                </style>
-            </head>
-            <body>
-                <div class="container">
-                    <div class="header">
-                        <h1>🎓 Congratulations, %s!</h1>
-                    </div>
-                    <div class="content">
-                        <p>We are pleased to inform you that you have successfully completed:</p>
-                        <div class="details">
-                            <strong>Course:</strong> %s<br>
-                            <strong>Completion Date:</strong> %s<br>
-                            <strong>Certificate ID:</strong> %s
-                        </div>
-                        <p>Your official certificate is attached to this email. You can also verify your certificate 
-                           online at any time.</p>
-                        <p>Keep this certificate safe as proof of your achievement!</p>
-                        <p style="margin-top: 30px;">
-                            <strong>Best regards,</strong><br>
-                            %s
-                        </p>
-                    </div>
-                    <div class="footer">
-                        <p>This is an automated message. Please do not reply to this email.</p>
-                        <p>Certificate ID: %s</p>
-                    </div>
-                </div>
-            </body>
-            </html>
-            """,
+    public void send(List<MimeMessage> messages) {
+        EmailSendEvent event = new EmailSendEvent();
+        event.begin();
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            event.failed = e.getFailedMessages().size();
+            throw e;
+        } catch (RuntimeException e) {
+            event.failed = messages.size();
+            throw e;
+        } finally {
+            event.messages = messages.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Build HTML email content (package-private for the benchmarks)
+     */
+    String buildEmailContent(Certificate certificate) {
+        return CERTIFICATE_EMAIL.render(
             certificate.getRecipientName(),
             certificate.getCourseName(),
             certificate.getCompletionDate().format(DATE_FORMATTER),
             certificate.getCertificateId(),
-            certificate.getIssuerName() != null ? certificate.getIssuerName() : "Certificate Authority",
-            certificate.getCertificateId()
+            certificate.getIssuerName() != null ? certificate.getIssuerName() : "Certificate Authority"
         );
     }
 
@@ -125,17 +240,7 @@ public class EmailService {
         helper.setTo(adminEmail);
         helper.setSubject("Batch Certificate Generation Complete");
 
-        String content = String.format("""
-            <html>
-            <body style="font-family: Arial, sans-serif;">
-                <h2>Batch Certificate Generation Summary</h2>
-                <p><strong>Total Certificates Requested:</strong> %d</p>
-                <p><strong>Successfully Generated:</strong> %d</p>
-                <p><strong>Failed:</strong> %d</p>
-                <p>All generated certificates have been emailed to their respective recipients.</p>
-            </body>
-            </html>
-            """, totalCertificates, successCount, totalCertificates - successCount);
+        String content = BATCH_NOTIFICATION_EMAIL.render(totalCertificates, successCount, totalCertificates - successCount);
 
         helper.setText(content, true);
         mailSender.send(message);
@@ -0,0 +1,77 @@
+package com.certificate.service;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTML email body compiled once into literal chunks and {@code {{field}}} slots.
+ * Rendering only appends chunks and HTML-escaped values into a pre-sized buffer;
+ * already rendered fragments can be passed as {@link Html} to be inserted verbatim.
+ */
+final class EmailTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{(\\w+)}}");
+
+    private final String[] literals;
+    private final int[] slots;
+    private final int literalLength;
+
+    private EmailTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        this.literalLength = Arrays.stream(literals).mapToInt(String::length).sum();
+    }
+
+    /**
+     * Compile a template whose placeholders are named by the given fields, in render argument order
+     */
+    static EmailTemplate compile(String source, String... fields) {
+        List<String> fieldNames = Arrays.asList(fields);
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        Matcher matcher = PLACEHOLDER.matcher(source);
+        int last = 0;
+        while (matcher.find()) {
+            int slot = fieldNames.indexOf(matcher.group(1));
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder " + matcher.group());
+            }
+            literals.add(source.substring(last, matcher.start()));
+            slots.add(slot);
+            last = matcher.end();
+        }
+        literals.add(source.substring(last));
+
+        return new EmailTemplate(literals.toArray(new String[0]), slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Fill the template; values are given in the order of the compiled fields
+     */
+    String render(Object... values) {
+        StringBuilder out = new StringBuilder(literalLength + slots.length * 32);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            Object value = values[slots[i]];
+            if (value instanceof Html html) {
+                out.append(html.value());
+            } else if (value != null) {
+                out.append(HtmlUtils.htmlEscape(value.toString()));
+            }
+        }
+        out.append(literals[slots.length]);
+        return out.toString();
+    }
+
+    /**
+     * Markup that is inserted without escaping
+     */
+    record Html(String value) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.certificate.service;
+
+import com.certificate.dto.FlightRecordingStatus;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Starts and dumps an in-process Java Flight Recorder recording, so production batch runs
+ * can be profiled without attaching a profiler. The recording includes the application's own
+ * events (certificate render, QR encode, import chunk, email send) next to the JDK's.
+ * At most one recording is managed at a time; it keeps a bounded window of data.
+ */
+@Service
+@Slf4j
+public class FlightRecordingService {
+
+    private static final String RECORDING_NAME = "certificate-admin";
+    private static final List<Class<? extends jdk.jfr.Event>> APPLICATION_EVENTS = List.of(
+        CertificateRenderEvent.class, QrEncodeEvent.class, ImportChunkEvent.class, EmailSendEvent.class);
+
+    private final String defaultSettings;
+    private final long maxAgeMinutes;
+    private final long maxSizeBytes;
+    private final boolean startOnBoot;
+
+    private Recording recording;
+    private String recordingSettings;
+
+    public FlightRecordingService(@Value("${certificate.profiling.settings:default}") String defaultSettings,
+                                  @Value("${certificate.profiling.max-age-minutes:30}") long maxAgeMinutes,
+                                  @Value("${certificate.profiling.max-size-mb:256}") long maxSizeMb,
+                                  @Value("${certificate.profiling.start-on-boot:false}") boolean startOnBoot) {
+        this.defaultSettings = defaultSettings;
+        this.maxAgeMinutes = maxAgeMinutes;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.startOnBoot = startOnBoot;
+    }
+
+    /**
+     * Keep a continuous recording running from startup when configured
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnBoot() throws IOException, ParseException {
+        if (startOnBoot) {
+            start(null, null);
+        }
+    }
+
+    /**
+     * Start a new recording, replacing the current one.
+     *
+     * @param settings        JFC settings name ("default" is low overhead, "profile" samples more); null for the configured one
+     * @param durationSeconds stop after this long; null to record continuously (bounded by max age and size)
+     */
+    public synchronized FlightRecordingStatus start(String settings, Long durationSeconds) throws IOException, ParseException {
+        String settingsName = settings != null ? settings : defaultSettings;
+        Configuration configuration = Configuration.getConfiguration(settingsName);
+
+        closeRecording();
+        Recording started = new Recording(configuration);
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        started.setMaxSize(maxSizeBytes);
+        if (durationSeconds != null && durationSeconds > 0) {
+            started.setDuration(Duration.ofSeconds(durationSeconds));
+        }
+        APPLICATION_EVENTS.forEach(event -> started.enable(event).withoutStackTrace());
+        started.start();
+
+        recording = started;
+        recordingSettings = settingsName;
+        log.info("Flight recording started with {} settings{}", settingsName,
+            durationSeconds != null && durationSeconds > 0 ? " for " + durationSeconds + "s" : "");
+        return getStatus();
+    }
+
+    /**
+     * Stop the recording; its data can still be dumped until the next start
+     */
+    public synchronized FlightRecordingStatus stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Flight recording stopped");
+        }
+        return getStatus();
+    }
+
+    public synchronized FlightRecordingStatus getStatus() {
+        if (recording == null) {
+            return FlightRecordingStatus.builder().state("NONE").build();
+        }
+        Duration duration = recording.getDuration();
+        return FlightRecordingStatus.builder()
+            .state(recording.getState().name())
+            .settings(recordingSettings)
+            .startedAt(recording.getStartTime())
+            .durationSeconds(duration != null ? duration.toSeconds() : null)
+            .maxAgeMinutes(maxAgeMinutes)
+            .maxSizeBytes(maxSizeBytes)
+            .sizeBytes(recording.getSize())
+            .build();
+    }
+
+    /**
+     * Write the data recorded so far as a .jfr file, leaving the recording running
+     *
+     * @return false if there is no recording to dump
+     */
+    public boolean dump(OutputStream out) throws IOException {
+        Path file = Files.createTempFile("certificate-recording-", ".jfr");
+        try {
+            synchronized (this) {
+                if (recording == null || recording.getState() == RecordingState.NEW) {
+                    return false;
+                }
+                recording.dump(file);
+            }
+            Files.copy(file, out);
+            return true;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
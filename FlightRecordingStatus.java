@@ -0,0 +1,35 @@
+package com.certificate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * State of the admin Flight Recorder recording
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightRecordingStatus {
+
+    /** NEW, RUNNING, STOPPED or CLOSED; NONE when no recording was started */
+    private String state;
+
+    /** JFC settings the recording uses (default or profile) */
+    private String settings;
+
+    private Instant startedAt;
+
+    /** Fixed duration in seconds, or null for a continuous recording */
+    private Long durationSeconds;
+
+    private long maxAgeMinutes;
+    private long maxSizeBytes;
+
+    /** Bytes recorded so far */
+    private long sizeBytes;
+}
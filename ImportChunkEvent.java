@@ -0,0 +1,39 @@
+package com.certificate.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one chunk of rows read from a CSV or Excel import
+ */
+@Name("com.certificate.ImportChunk")
+@Label("Import Chunk")
+@Category({"Certificate Generation", "Import"})
+@Description("Rows parsed from an import file; the duration includes the time the rows' consumer took")
+@StackTrace(false)
+class ImportChunkEvent extends jdk.jfr.Event {
+
+    @Label("Format")
+    String format;
+
+    @Label("First Row")
+    int firstRow;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Skipped Rows")
+    int skipped;
+
+    @Label("Rejected Rows")
+    int rejected;
+
+    @Label("Consumer Time")
+    @Description("Time spent handing rows on, e.g. waiting for batch workers; the rest is parsing")
+    @Timespan
+    long consumerTime;
+}
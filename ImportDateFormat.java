@@ -0,0 +1,147 @@
+package com.certificate.service;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Locale;
+
+/**
+ * Completion date formats accepted by imports.
+ * Each parses without throwing: a value that does not match, or names a day that does not exist,
+ * yields null, so rows can be checked against a format without exceptions as control flow.
+ */
+enum ImportDateFormat {
+
+    ISO("yyyy-MM-dd", true) {
+        @Override
+        LocalDate parse(String value) {
+            return parseNumeric(value, '-', 0, 1, 2);
+        }
+    },
+    MONTH_FIRST("MM/dd/yyyy", false) {
+        @Override
+        LocalDate parse(String value) {
+            return parseNumeric(value, '/', 2, 0, 1);
+        }
+    },
+    DAY_FIRST("dd/MM/yyyy", false) {
+        @Override
+        LocalDate parse(String value) {
+            return parseNumeric(value, '/', 2, 1, 0);
+        }
+    },
+    LONG("MMMM dd, yyyy", true) {
+        @Override
+        LocalDate parse(String value) {
+            // e.g. "March 15, 2024"
+            int space = value.indexOf(' ');
+            int comma = value.indexOf(',', space + 1);
+            if (space <= 0 || comma < 0 || comma + 2 >= value.length() || value.charAt(comma + 1) != ' ') {
+                return null;
+            }
+            // Year must be written out in full, as in the numeric formats
+            if (value.length() - (comma + 2) != 4) {
+                return null;
+            }
+            Month month = monthNamed(value.substring(0, space));
+            if (month == null) {
+                return null;
+            }
+            return date(parseDigits(value, comma + 2, value.length()), month.getValue(),
+                parseDigits(value, space + 1, comma));
+        }
+    };
+
+    private static final Month[] MONTHS = Month.values();
+    private static final String[] MONTH_NAMES = new String[MONTHS.length];
+
+    static {
+        for (Month month : MONTHS) {
+            MONTH_NAMES[month.ordinal()] = month.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final String pattern;
+    private final boolean unambiguous;
+
+    ImportDateFormat(String pattern, boolean unambiguous) {
+        this.pattern = pattern;
+        this.unambiguous = unambiguous;
+    }
+
+    String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Whether a value in this format can only mean one date. Slashed dates such as 03/04/2024
+     * read differently month-first and day-first, so they are not.
+     */
+    boolean isUnambiguous() {
+        return unambiguous;
+    }
+
+    /**
+     * Parse a trimmed value, or return null if it is not a valid date in this format
+     */
+    abstract LocalDate parse(String value);
+
+    /**
+     * Three numeric parts split by the separator; positions give which part is year, month and day
+     */
+    private static LocalDate parseNumeric(String value, char separator, int yearPart, int monthPart, int dayPart) {
+        int first = value.indexOf(separator);
+        int second = first < 0 ? -1 : value.indexOf(separator, first + 1);
+        if (second < 0 || value.indexOf(separator, second + 1) >= 0) {
+            return null;
+        }
+        int[] parts = {
+            parseDigits(value, 0, first),
+            parseDigits(value, first + 1, second),
+            parseDigits(value, second + 1, value.length())
+        };
+        // Year must be written out in full; month and day may drop a leading zero
+        int yearLength = yearPart == 0 ? first : value.length() - second - 1;
+        if (yearLength != 4) {
+            return null;
+        }
+        return date(parts[yearPart], parts[monthPart], parts[dayPart]);
+    }
+
+    /**
+     * Value of 1 to 4 ASCII digits, or -1
+     */
+    private static int parseDigits(String value, int from, int to) {
+        if (to <= from || to - from > 4) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static LocalDate date(int year, int month, int day) {
+        if (year < 1 || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+        if (day > MONTHS[month - 1].length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private static Month monthNamed(String name) {
+        for (int i = 0; i < MONTH_NAMES.length; i++) {
+            if (MONTH_NAMES[i].equalsIgnoreCase(name)) {
+                return MONTHS[i];
+            }
+        }
+        return null;
+    }
+}
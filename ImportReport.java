@@ -0,0 +1,57 @@
+package com.certificate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of parsing an import file: the inferred schema and the rows that were rejected
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReport {
+
+    /** csv or excel */
+    private String format;
+
+    /** Date pattern inferred from the sampled rows, tried first for every row */
+    private String dateFormat;
+
+    /** Header of the column each field was read from */
+    @Builder.Default
+    private Map<String, String> columns = new LinkedHashMap<>();
+
+    private int rowsRead;
+    private int rowsAccepted;
+    private int rowsSkipped;
+    private int rowsRejected;
+
+    /** Problems of rejected rows; only the first ones are kept (see errorsTruncated) */
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+
+    private boolean errorsTruncated;
+
+    /**
+     * One problem with one row
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        /** Data row number; 1 is the first row after the header */
+        private int rowNumber;
+        private String column;
+        private String value;
+        private String message;
+    }
+}
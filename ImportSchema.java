@@ -0,0 +1,199 @@
+package com.certificate.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Column layout and date format of one import file, inferred once from its header and a sample of rows.
+ * Columns are matched by header aliases first; an unmatched date or email column is recognised by
+ * its sampled values (most of which must look like dates or addresses). The date format is the one that parses most sampled dates, which also settles
+ * whether slashed dates are month-first or day-first.
+ */
+final class ImportSchema {
+
+    /** Data rows read before the schema is inferred */
+    static final int SAMPLE_ROWS = 100;
+
+    private static final ImportDateFormat[] DATE_FORMATS = ImportDateFormat.values();
+
+    final int nameIndex;
+    final int emailIndex;
+    final int courseIndex;
+    final int achievementIndex;
+    final int dateIndex;
+    final int issuerIndex;
+    final int instructorIndex;
+
+    /** Format tried first for every date; only unambiguous formats are tried when it does not match */
+    final ImportDateFormat dateFormat;
+
+    private final String[] headers;
+
+    private ImportSchema(String[] headers, int nameIndex, int emailIndex, int courseIndex, int achievementIndex,
+                         int dateIndex, int issuerIndex, int instructorIndex, ImportDateFormat dateFormat) {
+        this.headers = headers;
+        this.nameIndex = nameIndex;
+        this.emailIndex = emailIndex;
+        this.courseIndex = courseIndex;
+        this.achievementIndex = achievementIndex;
+        this.dateIndex = dateIndex;
+        this.issuerIndex = issuerIndex;
+        this.instructorIndex = instructorIndex;
+        this.dateFormat = dateFormat;
+    }
+
+    /**
+     * Infer the schema from the header row and the first data rows
+     */
+    static ImportSchema infer(String[] headers, List<String[]> sample) {
+        int nameIndex = findColumnIndex(headers, "name", "recipient_name", "recipient");
+        int emailIndex = findColumnIndex(headers, "email", "recipient_email");
+        int courseIndex = findColumnIndex(headers, "course", "course_name");
+        int achievementIndex = findColumnIndex(headers, "achievement", "achievement_title", "title");
+        int dateIndex = findColumnIndex(headers, "date", "completion_date", "completed_on");
+        int issuerIndex = findColumnIndex(headers, "issuer", "issuer_name");
+        int instructorIndex = findColumnIndex(headers, "instructor", "instructor_name");
+
+        List<Integer> assigned = List.of(nameIndex, emailIndex, courseIndex, achievementIndex,
+            dateIndex, issuerIndex, instructorIndex);
+        if (dateIndex < 0) {
+            dateIndex = findColumnByValues(headers.length, sample, assigned, value -> bestFormat(List.of(value)) != null);
+        }
+        if (emailIndex < 0) {
+            emailIndex = findColumnByValues(headers.length, sample, assigned, ImportSchema::looksLikeEmail);
+        }
+
+        ImportDateFormat dateFormat = dateIndex >= 0 ? bestFormat(values(sample, dateIndex)) : null;
+        return new ImportSchema(headers, nameIndex, emailIndex, courseIndex, achievementIndex,
+            dateIndex, issuerIndex, instructorIndex, dateFormat != null ? dateFormat : ImportDateFormat.ISO);
+    }
+
+    /**
+     * Parse a non-blank date with the inferred format, falling back to the unambiguous formats.
+     * Slashed dates are never read in the other day/month order than the inferred one, so a
+     * file's dates are not read under two conventions; a mismatching row is rejected instead.
+     *
+     * @return the date, or null if no accepted format matches
+     */
+    LocalDate parseDate(String value) {
+        LocalDate date = dateFormat.parse(value);
+        if (date != null) {
+            return date;
+        }
+        for (ImportDateFormat format : DATE_FORMATS) {
+            if (format != dateFormat && format.isUnambiguous() && (date = format.parse(value)) != null) {
+                return date;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Header of the column each field is read from
+     */
+    Map<String, String> describeColumns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        describe(columns, "name", nameIndex);
+        describe(columns, "email", emailIndex);
+        describe(columns, "course", courseIndex);
+        describe(columns, "achievement", achievementIndex);
+        describe(columns, "date", dateIndex);
+        describe(columns, "issuer", issuerIndex);
+        describe(columns, "instructor", instructorIndex);
+        return columns;
+    }
+
+    private void describe(Map<String, String> columns, String field, int index) {
+        if (index >= 0) {
+            columns.put(field, headers[index].trim());
+        }
+    }
+
+    static boolean looksLikeEmail(String value) {
+        int at = value.indexOf('@');
+        return at > 0 && at == value.lastIndexOf('@') && value.indexOf('.', at) > at + 1
+            && value.chars().noneMatch(Character::isWhitespace);
+    }
+
+    /**
+     * Format that parses the most values (declaration order breaks ties), or null if none parses any
+     */
+    private static ImportDateFormat bestFormat(List<String> values) {
+        ImportDateFormat best = null;
+        int bestCount = 0;
+        for (ImportDateFormat format : DATE_FORMATS) {
+            int count = 0;
+            for (String value : values) {
+                if (format.parse(value) != null) {
+                    count++;
+                }
+            }
+            if (count > bestCount) {
+                best = format;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * First unassigned column where more than half of the sampled values pass the check
+     */
+    private static int findColumnByValues(int columns, List<String[]> sample, List<Integer> assigned,
+                                          Predicate<String> check) {
+        for (int column = 0; column < columns; column++) {
+            if (assigned.contains(column)) {
+                continue;
+            }
+            List<String> values = values(sample, column);
+            if (!values.isEmpty() && values.stream().filter(check).count() * 2 > values.size()) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Non-blank, trimmed values of a column in the sample
+     */
+    private static List<String> values(List<String[]> sample, int column) {
+        List<String> values = new ArrayList<>();
+        for (String[] row : sample) {
+            String value = valueOrNull(row, column);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Trimmed cell value, or null if the cell is missing or blank
+     */
+    static String valueOrNull(String[] row, int index) {
+        if (index >= 0 && index < row.length && row[index] != null) {
+            String value = row[index].trim();
+            return value.isEmpty() ? null : value;
+        }
+        return null;
+    }
+
+    /**
+     * Find column index by multiple possible header names ("Completed On" matches completed_on)
+     */
+    private static int findColumnIndex(String[] headers, String... possibleNames) {
+        for (int i = 0; i < headers.length; i++) {
+            String header = headers[i].toLowerCase().trim().replace(' ', '_').replace('-', '_');
+            for (String name : possibleNames) {
+                if (header.equals(name.toLowerCase()) || header.contains(name.toLowerCase())) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
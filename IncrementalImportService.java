@@ -0,0 +1,281 @@
+package com.certificate.service;
+
+import com.certificate.dto.CertificateRequest;
+import com.certificate.dto.CertificateResponse;
+import com.certificate.model.Certificate;
+import com.certificate.model.CertificateTemplate;
+import com.certificate.repository.CertificateQueryRepository;
+import com.certificate.repository.CertificateTemplateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Idempotent re-import: passes on only the rows that have not been issued yet.
+ *
+ * Each row is fingerprinted by the content printed on its certificate (recipient name and email,
+ * course, achievement, completion date, issuer, instructor and template). Rows are looked up in chunks
+ * against the active certificates of the chunk's recipients, so a corrected re-upload only renders
+ * and emails the new or changed rows. A row without a date matches an issued certificate of any date,
+ * since such rows were issued with the date of issue. Rows without an email are always issued.
+ *
+ * Optionally, a corrected row supersedes the active certificates of the same recipient, course, template
+ * and completion date. Which ones are only known once the whole import has run: a certificate matched
+ * by any row of the file, or issued by the import itself, is kept. Emails are matched in lower case,
+ * as they are stored.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncrementalImportService {
+
+    private static final char SEPARATOR = '\u001f';
+
+    /** Position of the recipient email in the fingerprinted fields */
+    private static final int EMAIL_FIELD = 1;
+
+    private final CertificateQueryRepository certificateQueryRepository;
+    private final CertificateTemplateRepository templateRepository;
+
+    @Value("${certificate.import.incremental.lookup-chunk:500}")
+    private int lookupChunk;
+
+    /**
+     * Start filtering the rows of one import.
+     * New rows are handed to the consumer with the hook to run once their certificate is stored
+     * (null unless superseding); call {@link IncrementalImport#finish()} after the last row.
+     */
+    public IncrementalImport open(BiConsumer<CertificateRequest, Consumer<CertificateResponse>> consumer,
+                                  Runnable onUnchanged, boolean supersede) {
+        Long defaultTemplateId = templateRepository.findByIsDefaultTrue().stream()
+            .findFirst()
+            .map(CertificateTemplate::getId)
+            .orElse(null);
+        return new IncrementalImport(consumer, onUnchanged, supersede, defaultTemplateId);
+    }
+
+    /**
+     * Rows of one import, checked against issued certificates a chunk at a time
+     */
+    public class IncrementalImport implements Consumer<CertificateRequest> {
+
+        private final BiConsumer<CertificateRequest, Consumer<CertificateResponse>> consumer;
+        private final Runnable onUnchanged;
+        private final boolean supersede;
+        private final Long defaultTemplateId;
+        private final MessageDigest digest = sha256();
+        private final List<CertificateRequest> pending = new ArrayList<>();
+
+        /** Fingerprints of the rows already passed on, so duplicates within the file are issued once */
+        private final Set<String> seen = new HashSet<>();
+
+        /** Certificates matched by some row of the import; never superseded */
+        private final Set<String> kept = new HashSet<>();
+
+        /** Filled by the issue hooks on the batch workers */
+        private final Set<String> replaced = ConcurrentHashMap.newKeySet();
+        private final Set<String> issuedIds = ConcurrentHashMap.newKeySet();
+
+        private int issued;
+        private int unchanged;
+
+        private IncrementalImport(BiConsumer<CertificateRequest, Consumer<CertificateResponse>> consumer,
+                                  Runnable onUnchanged, boolean supersede, Long defaultTemplateId) {
+            this.consumer = consumer;
+            this.onUnchanged = onUnchanged;
+            this.supersede = supersede;
+            this.defaultTemplateId = defaultTemplateId;
+        }
+
+        @Override
+        public void accept(CertificateRequest request) {
+            pending.add(request);
+            if (pending.size() >= lookupChunk) {
+                flush();
+            }
+        }
+
+        /**
+         * Check and pass on the last, partial chunk
+         */
+        public void finish() {
+            flush();
+            log.info("Incremental import: {} new or changed rows, {} already issued", issued, unchanged);
+        }
+
+        public int getIssued() {
+            return issued;
+        }
+
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        /**
+         * Certificates superseded by the corrected rows of this import. Only complete once every row
+         * has been read and every new row's certificate is stored; empty unless superseding.
+         */
+        public Set<String> getSuperseded() {
+            Set<String> superseded = new HashSet<>(replaced);
+            superseded.removeAll(kept);
+            superseded.removeAll(issuedIds);
+            return superseded;
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            IssuedCertificates issuedCertificates = findIssued(pending);
+
+            List<CertificateRequest> newRows = new ArrayList<>();
+            for (CertificateRequest request : pending) {
+                String fingerprint = fingerprint(request);
+                List<String> matched = fingerprint != null ? issuedCertificates.byFingerprint.get(fingerprint) : null;
+                if (matched != null) {
+                    kept.addAll(matched);
+                }
+                if (fingerprint != null && (matched != null || !seen.add(fingerprint))) {
+                    unchanged++;
+                    onUnchanged.run();
+                } else {
+                    newRows.add(request);
+                }
+            }
+
+            for (CertificateRequest request : newRows) {
+                issued++;
+                consumer.accept(request, supersede ? issueHook(issuedCertificates, request) : null);
+            }
+            pending.clear();
+        }
+
+        /**
+         * Once the row's certificate is stored, record it and the certificates it may replace; a row
+         * that fails to generate replaces nothing
+         */
+        private Consumer<CertificateResponse> issueHook(IssuedCertificates issuedCertificates,
+                                                        CertificateRequest request) {
+            List<String> candidates = issuedCertificates.bySlot.getOrDefault(slot(request), List.of());
+            return response -> {
+                issuedIds.add(response.getCertificateId());
+                replaced.addAll(candidates);
+            };
+        }
+
+        /**
+         * Active certificates of the chunk's recipients, by fingerprint (with and without their date)
+         * and by recipient, course, template and completion date
+         */
+        private IssuedCertificates findIssued(List<CertificateRequest> requests) {
+            Set<String> emails = new HashSet<>();
+            for (CertificateRequest request : requests) {
+                if (request.getRecipientEmail() != null) {
+                    emails.add(CertificateService.normalizeEmail(request.getRecipientEmail()));
+                }
+            }
+            IssuedCertificates issuedCertificates = new IssuedCertificates();
+            if (emails.isEmpty()) {
+                return issuedCertificates;
+            }
+            for (CertificateQueryRepository.ContentView certificate
+                    : certificateQueryRepository.findContentByRecipientEmailIn(emails, Certificate.CertificateStatus.ACTIVE)) {
+                LocalDate date = certificate.getCompletionDate() != null ? certificate.getCompletionDate().toLocalDate() : null;
+                String[] fields = {certificate.getRecipientName(), certificate.getRecipientEmail(),
+                    certificate.getCourseName(), certificate.getAchievementTitle(), certificate.getIssuerName(),
+                    certificate.getInstructorName(), String.valueOf(certificate.getTemplateId())};
+                String certificateId = certificate.getCertificateId();
+                issuedCertificates.add(hash(fields, date != null ? date.toString() : ""), certificateId);
+                issuedCertificates.add(hash(fields, null), certificateId);
+                if (date != null) {
+                    String slot = slot(certificate.getRecipientEmail(), certificate.getCourseName(),
+                        certificate.getTemplateId(), date);
+                    issuedCertificates.bySlot.computeIfAbsent(slot, key -> new ArrayList<>()).add(certificateId);
+                }
+            }
+            return issuedCertificates;
+        }
+
+        /**
+         * Recipient, course, template and completion date of the certificate a row would issue; an issued
+         * certificate in the same slot is the one a corrected row replaces. Rows without an email or a
+         * date have no slot, so they replace nothing.
+         */
+        private String slot(CertificateRequest request) {
+            if (request.getRecipientEmail() == null || request.getCompletionDate() == null) {
+                return null;
+            }
+            return slot(request.getRecipientEmail(), request.getCourseName(), templateId(request),
+                request.getCompletionDate());
+        }
+
+        private String slot(String email, String course, Long templateId, LocalDate date) {
+            return CertificateService.normalizeEmail(email) + SEPARATOR + (course == null ? "" : course.trim())
+                + SEPARATOR + templateId + SEPARATOR + date;
+        }
+
+        private Long templateId(CertificateRequest request) {
+            return request.getTemplateId() != null ? request.getTemplateId() : defaultTemplateId;
+        }
+
+        /**
+         * Fingerprint of the certificate a row would issue, or null if the row has no email to match on
+         */
+        private String fingerprint(CertificateRequest request) {
+            if (request.getRecipientEmail() == null) {
+                return null;
+            }
+            String[] fields = {request.getRecipientName(), request.getRecipientEmail(), request.getCourseName(),
+                request.getAchievementTitle(), request.getIssuerName(), request.getInstructorName(),
+                String.valueOf(templateId(request))};
+            return hash(fields, request.getCompletionDate() != null ? request.getCompletionDate().toString() : null);
+        }
+
+        /**
+         * SHA-256 of the trimmed fields (email in lower case); a null date stands for "any date".
+         * Other fields keep their case, since a corrected capitalisation changes the printed certificate.
+         */
+        private String hash(String[] fields, String date) {
+            StringBuilder content = new StringBuilder(128);
+            for (int i = 0; i < fields.length; i++) {
+                String field = fields[i] == null ? "" : fields[i].trim();
+                content.append(i == EMAIL_FIELD ? CertificateService.normalizeEmail(field) : field).append(SEPARATOR);
+            }
+            content.append(date != null ? date : "*");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    private static final class IssuedCertificates {
+        private final Map<String, List<String>> byFingerprint = new HashMap<>();
+        private final Map<String, List<String>> bySlot = new HashMap<>();
+
+        private void add(String fingerprint, String certificateId) {
+            byFingerprint.computeIfAbsent(fingerprint, key -> new ArrayList<>()).add(certificateId);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.certificate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the issuance pipeline, exposed at /actuator/prometheus.
+ *
+ * certificate.issuance.stage (tag stage) times each step of issuing one certificate, with
+ * percentile histograms so slow stages can be told apart; certificate.issuance times the whole
+ * issuance (tag mode: single or batch). Import and batch row outcomes are counters.
+ */
+@Component
+public class IssuanceMetrics {
+
+    /**
+     * Steps of issuing a certificate
+     */
+    public enum Stage {
+        /** Template lookup */
+        TEMPLATE,
+        /** Certificate ID allocation */
+        ID,
+        /** Whole PDF generation (covers the QR, layout and store stages) */
+        RENDER,
+        /** QR code encoding */
+        QR_ENCODE,
+        /** QR code PNG output */
+        QR_PNG,
+        /** PDF layout; when streaming into storage this includes writing through to it */
+        LAYOUT,
+        /** Writing the PDF to storage, beyond what layout already streamed */
+        STORE,
+        /** Database save (for batches: waiting for and running the group commit) */
+        SAVE,
+        /** Queueing the email */
+        EMAIL
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Timer singleIssuance;
+    private final Timer batchIssuance;
+    private final Counter batchRowsGenerated;
+    private final Counter batchRowsFailed;
+
+    public IssuanceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("certificate.issuance.stage")
+                .description("Time spent in one stage of issuing a certificate")
+                .tag("stage", stage.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                .publishPercentileHistogram()
+                .register(registry));
+        }
+        this.singleIssuance = issuanceTimer("single");
+        this.batchIssuance = issuanceTimer("batch");
+        this.batchRowsGenerated = batchRows("generated");
+        this.batchRowsFailed = batchRows("failed");
+    }
+
+    /**
+     * Record a stage that started at the given {@link System#nanoTime()}
+     */
+    public void recordStage(Stage stage, long startedNanos) {
+        recordStageNanos(stage, System.nanoTime() - startedNanos);
+    }
+
+    public void recordStageNanos(Stage stage, long nanos) {
+        stages.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a complete issuance that started at the given {@link System#nanoTime()}
+     */
+    public void recordIssuance(boolean batch, long startedNanos) {
+        (batch ? batchIssuance : singleIssuance).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void batchRowGenerated() {
+        batchRowsGenerated.increment();
+    }
+
+    public void batchRowFailed() {
+        batchRowsFailed.increment();
+    }
+
+    /**
+     * Count an import row by file format and result (parsed, skipped)
+     */
+    public void importRow(String format, String result) {
+        registry.counter("certificate.import.rows", "format", format, "result", result).increment();
+    }
+
+    /**
+     * Count an import problem by reason (e.g. a date that could not be parsed)
+     */
+    public void importError(String reason) {
+        registry.counter("certificate.import.errors", "reason", reason).increment();
+    }
+
+    private Timer issuanceTimer(String mode) {
+        return Timer.builder("certificate.issuance")
+            .description("Time to issue one certificate, from request to stored row")
+            .tag("mode", mode)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    private Counter batchRows(String result) {
+        return Counter.builder("certificate.batch.rows")
+            .description("Batch rows by generation outcome")
+            .tag("result", result)
+            .register(registry);
+    }
+}
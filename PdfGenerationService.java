@@ -7,27 +7,36 @@ import com.google.zxing.WriterException;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
-import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDate;
+import com.itextpdf.kernel.pdf.PdfDictionary;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfString;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Image;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.io.image.ImageDataFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.GregorianCalendar;
+import java.util.function.Consumer;
 
 /**
  * Core PDF Generation Service
@@ -38,12 +47,19 @@ import java.time.format.DateTimeFormatter;
 @Slf4j
 public class PdfGenerationService {
 
-    @Value("${certificate.storage.path}")
-    private String storagePath;
+    private final TemplateAssetCache templateAssetCache;
+    private final CertificateStorage certificateStorage;
+    private final IssuanceMetrics metrics;
 
     @Value("${certificate.verification.base-url}")
     private String verificationBaseUrl;
 
+    @Value("${certificate.render.stamp-template:false}")
+    private boolean stampTemplate;
+
+    @Value("${certificate.qr.write-png:true}")
+    private boolean writeQrPng;
+
     private static final int QR_CODE_SIZE = 150;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMMM dd, yyyy");
 
@@ -51,45 +67,47 @@ public class PdfGenerationService {
      * Generate PDF certificate with QR code
      */
     public String generateCertificatePdf(Certificate certificate, CertificateTemplate template) throws IOException {
+        return generateCertificatePdf(certificate, template, null);
+    }
+
+    /**
+     * Generate PDF certificate with QR code, handing the rendered bytes to renderedPdf (if given)
+     * so callers can keep them in memory, e.g. for the email attachment
+     */
+    public String generateCertificatePdf(Certificate certificate, CertificateTemplate template,
+                                         Consumer<byte[]> renderedPdf) throws IOException {
         try {
-            // Ensure storage directory exists
-            Path certificateDir = Paths.get(storagePath);
-            if (!Files.exists(certificateDir)) {
-                Files.createDirectories(certificateDir);
-                log.info("Created certificate storage directory: {}", certificateDir);
+            // Encode the QR code once: drawn into the PDF as vector modules, optionally saved as PNG
+            BitMatrix qrMatrix = encodeQRCodeSafely(certificate.getCertificateId());
+            if (qrMatrix != null && writeQrPng) {
+                long pngStarted = System.nanoTime();
+                certificate.setQrCodePath(writeQRCodePng(certificate.getCertificateId(), qrMatrix));
+                metrics.recordStage(IssuanceMetrics.Stage.QR_PNG, pngStarted);
             }
 
-            // Generate unique filename
-            String fileName = certificate.getCertificateId() + ".pdf";
-            String filePath = Paths.get(storagePath, fileName).toString();
-
-            // Generate QR code first
-            String qrCodePath = generateQRCode(certificate.getCertificateId());
-
-            // Create PDF
-            try (PdfWriter writer = new PdfWriter(filePath);
-                 PdfDocument pdfDoc = new PdfDocument(writer);
-                 Document document = new Document(pdfDoc)) {
-
-                // Set page size to A4 landscape
-                pdfDoc.setDefaultPageSize(com.itextpdf.kernel.geom.PageSize.A4.rotate());
-
-                // Add background if exists (skip if file doesn't exist)
-                if (template != null && template.getBackgroundPath() != null) {
-                    try {
-                        addBackgroundImage(document, template.getBackgroundPath());
-                    } catch (Exception e) {
-                        log.warn("Could not add background image, continuing without it: {}", e.getMessage());
+            // Create PDF, streamed straight into storage unless the caller wants the bytes
+            String filePath;
+            if (renderedPdf == null) {
+                // Layout writes through to storage, so store time is what remains around it
+                long storeStarted = System.nanoTime();
+                long[] layoutNanos = new long[1];
+                filePath = certificateStorage.store("pdf", out -> {
+                    try (PdfWriter writer = newWriter(out, certificate)) {
+                        layoutNanos[0] = writeCertificatePdf(writer, certificate, template, qrMatrix);
                     }
+                });
+                metrics.recordStageNanos(IssuanceMetrics.Stage.STORE,
+                    System.nanoTime() - storeStarted - layoutNanos[0]);
+            } else {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                try (PdfWriter writer = newWriter(buffer, certificate)) {
+                    writeCertificatePdf(writer, certificate, template, qrMatrix);
                 }
-
-                // Add certificate content
-                addCertificateContent(document, certificate);
-
-                // Add QR code
-                if (qrCodePath != null) {
-                    addQRCodeToDocument(document, qrCodePath);
-                }
+                byte[] pdf = buffer.toByteArray();
+                long storeStarted = System.nanoTime();
+                filePath = certificateStorage.store("pdf", out -> out.write(pdf));
+                metrics.recordStage(IssuanceMetrics.Stage.STORE, storeStarted);
+                renderedPdf.accept(pdf);
             }
 
             log.info("Certificate PDF generated: {}", filePath);
@@ -101,26 +119,136 @@ public class PdfGenerationService {
     }
 
     /**
-     * Add background image to PDF
+     * Render a certificate PDF in memory, without writing any files
+     */
+    public byte[] renderCertificatePdf(Certificate certificate, CertificateTemplate template) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (PdfWriter writer = newWriter(out, certificate)) {
+                writeCertificatePdf(writer, certificate, template, encodeQRCodeSafely(certificate.getCertificateId()));
+            }
+            log.info("Certificate PDF rendered: {} ({} bytes)", certificate.getCertificateId(), out.size());
+            return out.toByteArray();
+        } catch (Exception e) {
+            log.error("Error rendering PDF for certificate {}", certificate.getCertificateId(), e);
+            throw new IOException("Failed to render PDF: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writer whose document ID is derived from the certificate ID instead of being random,
+     * so rendering the same certificate again (e.g. after a cache eviction) gives the same bytes
+     */
+    private PdfWriter newWriter(OutputStream out, Certificate certificate) {
+        PdfString documentId = new PdfString(documentId(certificate.getCertificateId()));
+        documentId.setHexWriting(true);
+        return new PdfWriter(out, new WriterProperties()
+            .setInitialDocumentId(documentId)
+            .setModifiedDocumentId(documentId));
+    }
+
+    private static byte[] documentId(String certificateId) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(certificateId.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    /**
+     * Fix the info dictionary's dates to the issue date rather than the time of rendering
      */
-    private void addBackgroundImage(Document document, String backgroundPath) throws IOException {
-        File bgFile = new File(backgroundPath);
-        if (bgFile.exists()) {
-            Image background = new Image(ImageDataFactory.create(backgroundPath));
-            background.setFixedPosition(0, 0);
-            background.scaleToFit(document.getPdfDocument().getDefaultPageSize().getWidth(),
-                                  document.getPdfDocument().getDefaultPageSize().getHeight());
-            document.add(background);
+    private static void setDocumentDates(PdfDocument pdfDoc, Certificate certificate) {
+        if (certificate.getIssuedDate() == null) {
+            return;
         }
+        PdfString issued = new PdfDate(GregorianCalendar.from(
+            certificate.getIssuedDate().atZone(ZoneId.systemDefault()))).getPdfObject();
+        PdfDictionary info = pdfDoc.getDocumentInfo().getPdfObject();
+        info.put(PdfName.CreationDate, issued);
+        info.put(PdfName.ModDate, issued);
     }
 
     /**
-     * Add certificate text content
+     * Lay out a certificate into the given writer, returning the nanoseconds it took
      */
-    private void addCertificateContent(Document document, Certificate certificate) throws IOException {
-        PdfFont font = PdfFontFactory.createFont();
-        PdfFont boldFont = PdfFontFactory.createFont(
-            com.itextpdf.io.font.constants.StandardFonts.HELVETICA_BOLD);
+    private long writeCertificatePdf(PdfWriter writer, Certificate certificate, CertificateTemplate template,
+                                     BitMatrix qrMatrix) throws IOException {
+        CertificateRenderEvent event = new CertificateRenderEvent();
+        event.begin();
+        long started = System.nanoTime();
+        long assetLoadNanos;
+
+        // Fonts, background and geometry are parsed once per template version
+        TemplateRenderAssets assets = templateAssetCache.get(template);
+
+        try (PdfDocument pdfDoc = new PdfDocument(writer);
+             Document document = new Document(pdfDoc)) {
+
+            setDocumentDates(pdfDoc, certificate);
+
+            // Set page size to A4 landscape
+            pdfDoc.setDefaultPageSize(assets.getPageSize());
+
+            PdfFont font = assets.createRegularFont();
+            PdfFont boldFont = assets.createBoldFont();
+            assetLoadNanos = System.nanoTime() - started;
+
+            // Background and headings: stamped from the pre-rendered template page, or laid out
+            if (stampTemplate) {
+                stampStaticContent(document, assets);
+            } else {
+                addStaticContent(document, assets, font, boldFont);
+            }
+
+            // Add certificate content
+            addRecipientContent(document, certificate, assets, font, boldFont);
+
+            // Add QR code
+            if (qrMatrix != null) {
+                addQRCodeToDocument(pdfDoc, qrMatrix);
+            }
+        }
+
+        long elapsed = System.nanoTime() - started;
+        metrics.recordStageNanos(IssuanceMetrics.Stage.LAYOUT, elapsed);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.certificateId = certificate.getCertificateId();
+            event.templateId = template != null && template.getId() != null ? template.getId() : 0;
+            event.stampTemplate = stampTemplate;
+            event.pageBytes = writer.getCurrentPos();
+            event.assetLoadTime = assetLoadNanos;
+            event.commit();
+        }
+        return elapsed;
+    }
+
+    /**
+     * Stamp the template's pre-rendered static page as a Form XObject.
+     * The flow layout then continues below the stamped headings, so per-recipient
+     * fields land exactly where the layout path would put them.
+     */
+    private void stampStaticContent(Document document, TemplateRenderAssets assets) throws IOException {
+        TemplateStamp stamp = assets.getStamp();
+        PdfDocument pdfDoc = document.getPdfDocument();
+
+        PdfPage page = pdfDoc.addNewPage();
+        new PdfCanvas(page).addXObjectAt(stamp.copyTo(pdfDoc), 0, 0);
+
+        document.setTopMargin(assets.getPageSize().getHeight() - stamp.getContentTop());
+    }
+
+    /**
+     * Add the parts of a certificate that are the same for every recipient:
+     * background, title and "presented to" line
+     */
+    static void addStaticContent(Document document, TemplateRenderAssets assets, PdfFont font, PdfFont boldFont) {
+        // Add background if the template has a usable one
+        if (assets.getBackground() != null) {
+            addBackgroundImage(document, assets);
+        }
 
         // Certificate Title
         Paragraph title = new Paragraph("CERTIFICATE OF ACHIEVEMENT")
@@ -128,7 +256,7 @@ public class PdfGenerationService {
             .setFontSize(32)
             .setTextAlignment(TextAlignment.CENTER)
             .setMarginTop(100)
-            .setFontColor(new DeviceRgb(0, 51, 102));
+            .setFontColor(assets.getTitleColor());
         document.add(title);
 
         // Presented to
@@ -138,14 +266,30 @@ public class PdfGenerationService {
             .setTextAlignment(TextAlignment.CENTER)
             .setMarginTop(30);
         document.add(presentedTo);
+    }
 
+    /**
+     * Add background image to PDF
+     */
+    private static void addBackgroundImage(Document document, TemplateRenderAssets assets) {
+        Image background = new Image(assets.getBackground());
+        background.setFixedPosition(0, 0);
+        background.scaleAbsolute(assets.getBackgroundWidth(), assets.getBackgroundHeight());
+        document.add(background);
+    }
+
+    /**
+     * Add per-recipient text content
+     */
+    private void addRecipientContent(Document document, Certificate certificate, TemplateRenderAssets assets,
+                                     PdfFont font, PdfFont boldFont) {
         // Recipient Name
         Paragraph recipientName = new Paragraph(certificate.getRecipientName())
             .setFont(boldFont)
             .setFontSize(36)
             .setTextAlignment(TextAlignment.CENTER)
             .setMarginTop(20)
-            .setFontColor(new DeviceRgb(0, 102, 204));
+            .setFontColor(assets.getRecipientColor());
         document.add(recipientName);
 
         // Achievement
@@ -191,48 +335,113 @@ public class PdfGenerationService {
             .setFontSize(10)
             .setTextAlignment(TextAlignment.CENTER)
             .setMarginTop(40)
-            .setFontColor(new DeviceRgb(128, 128, 128));
+            .setFontColor(assets.getMutedColor());
         document.add(certId);
     }
 
     /**
-     * Add QR code to document
+     * Draw QR code as filled rectangles on the last page.
+     * Each run of dark modules in a row becomes one rectangle, so no raster
+     * image has to be encoded, written or read back.
      */
-    private void addQRCodeToDocument(Document document, String qrCodePath) throws IOException {
-        Image qrImage = new Image(ImageDataFactory.create(qrCodePath));
-        qrImage.setFixedPosition(50, 50);
-        qrImage.scaleToFit(QR_CODE_SIZE, QR_CODE_SIZE);
-        document.add(qrImage);
+    private void addQRCodeToDocument(PdfDocument pdfDoc, BitMatrix qrMatrix) {
+        float moduleSize = (float) QR_CODE_SIZE / qrMatrix.getWidth();
+        float originX = 50;
+        float originY = 50;
+
+        PdfCanvas canvas = new PdfCanvas(pdfDoc.getLastPage());
+        canvas.saveState().setFillColor(ColorConstants.BLACK);
+        for (int row = 0; row < qrMatrix.getHeight(); row++) {
+            // Matrix rows run top-down, PDF coordinates bottom-up
+            float y = originY + (qrMatrix.getHeight() - row - 1) * moduleSize;
+            int col = 0;
+            while (col < qrMatrix.getWidth()) {
+                if (!qrMatrix.get(col, row)) {
+                    col++;
+                    continue;
+                }
+                int runStart = col;
+                while (col < qrMatrix.getWidth() && qrMatrix.get(col, row)) {
+                    col++;
+                }
+                canvas.rectangle(originX + runStart * moduleSize, y, (col - runStart) * moduleSize, moduleSize);
+            }
+        }
+        canvas.fill().restoreState();
     }
 
     /**
      * Generate QR code for certificate verification
      */
     public String generateQRCode(String certificateId) {
+        BitMatrix qrMatrix = encodeQRCodeSafely(certificateId);
+        return qrMatrix != null ? writeQRCodePng(certificateId, qrMatrix) : null;
+    }
+
+    /**
+     * Encode the verification URL as a QR matrix at one pixel per module (quiet zone included)
+     */
+    public BitMatrix encodeQRCode(String certificateId) throws WriterException {
+        String verificationUrl = verificationBaseUrl + "/" + certificateId;
+        return new QRCodeWriter().encode(verificationUrl, BarcodeFormat.QR_CODE, 0, 0);
+    }
+
+    private BitMatrix encodeQRCodeSafely(String certificateId) {
+        QrEncodeEvent event = new QrEncodeEvent();
+        event.begin();
+        long started = System.nanoTime();
+        BitMatrix qrMatrix = null;
         try {
-            Path qrDir = Paths.get(storagePath, "qr");
-            if (!Files.exists(qrDir)) {
-                Files.createDirectories(qrDir);
+            qrMatrix = encodeQRCode(certificateId);
+            return qrMatrix;
+        } catch (WriterException e) {
+            log.error("Error generating QR code for certificate {}", certificateId, e);
+            return null;
+        } finally {
+            metrics.recordStage(IssuanceMetrics.Stage.QR_ENCODE, started);
+            event.end();
+            if (event.shouldCommit()) {
+                event.certificateId = certificateId;
+                event.modules = qrMatrix != null ? qrMatrix.getWidth() : 0;
+                event.commit();
             }
+        }
+    }
 
-            String verificationUrl = verificationBaseUrl + "/" + certificateId;
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(verificationUrl, BarcodeFormat.QR_CODE, 
-                                                      QR_CODE_SIZE, QR_CODE_SIZE);
+    /**
+     * Save an encoded QR matrix as a PNG of QR_CODE_SIZE pixels
+     */
+    private String writeQRCodePng(String certificateId, BitMatrix qrMatrix) {
+        try {
+            BitMatrix scaled = scaleMatrix(qrMatrix, QR_CODE_SIZE);
+            String qrFilePath = certificateStorage.store("png",
+                out -> MatrixToImageWriter.writeToStream(scaled, "PNG", out));
 
-            String qrFileName = certificateId + "_qr.png";
-            Path qrFilePath = Paths.get(storagePath, "qr", qrFileName);
-            
-            MatrixToImageWriter.writeToPath(bitMatrix, "PNG", qrFilePath);
-            
             log.info("QR code generated: {}", qrFilePath);
-            return qrFilePath.toString();
-        } catch (WriterException | IOException e) {
-            log.error("Error generating QR code for certificate {}", certificateId, e);
+            return qrFilePath;
+        } catch (IOException e) {
+            log.error("Error writing QR code for certificate {}", certificateId, e);
             return null;
         }
     }
 
+    /**
+     * Scale a one-pixel-per-module matrix up to the given size, centred with whole-pixel modules
+     */
+    private BitMatrix scaleMatrix(BitMatrix source, int size) {
+        int multiple = Math.max(1, size / source.getWidth());
+        int padding = Math.max(0, (size - source.getWidth() * multiple) / 2);
+        BitMatrix scaled = new BitMatrix(Math.max(size, source.getWidth() * multiple));
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int x = 0; x < source.getWidth(); x++) {
+                if (source.get(x, y)) {
+                    scaled.setRegion(padding + x * multiple, padding + y * multiple, multiple, multiple);
+                }
+            }
+        }
+        return scaled;
+    }
+
     /**
      * Generate PNG version of certificate
      */
@@ -0,0 +1,80 @@
+package com.certificate.controller;
+
+import com.certificate.dto.FlightRecordingStatus;
+import com.certificate.service.FlightRecordingService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * REST API for starting and downloading Java Flight Recorder recordings
+ */
+@RestController
+@RequestMapping("/api/admin/profiling/recording")
+@RequiredArgsConstructor
+@Slf4j
+public class ProfilingController {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final FlightRecordingService flightRecordingService;
+
+    /**
+     * State of the current recording
+     */
+    @GetMapping
+    public ResponseEntity<FlightRecordingStatus> getStatus() {
+        return ResponseEntity.ok(flightRecordingService.getStatus());
+    }
+
+    /**
+     * Start a recording (replacing the current one), optionally for a fixed number of seconds
+     */
+    @PostMapping("/start")
+    public ResponseEntity<FlightRecordingStatus> start(@RequestParam(required = false) String settings,
+                                                       @RequestParam(required = false) Long durationSeconds) {
+        try {
+            return ResponseEntity.ok(flightRecordingService.start(settings, durationSeconds));
+        } catch (IOException | ParseException e) {
+            log.warn("Could not start flight recording with settings {}: {}", settings, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Stop the current recording
+     */
+    @PostMapping("/stop")
+    public ResponseEntity<FlightRecordingStatus> stop() {
+        return ResponseEntity.ok(flightRecordingService.stop());
+    }
+
+    /**
+     * Download what has been recorded so far as a .jfr file (open in JDK Mission Control or `jfr print`)
+     */
+    @GetMapping("/dump")
+    public void dump(HttpServletResponse response) throws IOException {
+        String fileName = "certificate-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr";
+        response.setContentType("application/octet-stream");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        if (!flightRecordingService.dump(response.getOutputStream())) {
+            response.reset();
+            response.sendError(HttpStatus.NOT_FOUND.value(), "No recording has been started");
+            return;
+        }
+        response.flushBuffer();
+    }
+}
@@ -0,0 +1,22 @@
+package com.certificate.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for encoding one verification QR code
+ */
+@Name("com.certificate.QrEncode")
+@Label("QR Encode")
+@Category({"Certificate Generation", "Rendering"})
+@StackTrace(false)
+class QrEncodeEvent extends jdk.jfr.Event {
+
+    @Label("Certificate ID")
+    String certificateId;
+
+    @Label("Modules")
+    int modules;
+}
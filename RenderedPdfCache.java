@@ -0,0 +1,145 @@
+package com.certificate.service;
+
+import com.certificate.dto.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of rendered certificate PDFs, bounded by total size in bytes.
+ * Concurrent requests for the same certificate share a single render.
+ */
+@Component
+@Slf4j
+public class RenderedPdfCache {
+
+    private final long maxBytes;
+    private final Map<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RenderedPdfCache(@Value("${certificate.render.cache-max-bytes:67108864}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @FunctionalInterface
+    public interface Renderer {
+        byte[] render() throws IOException;
+    }
+
+    /**
+     * Get the rendered PDF, rendering it on first access
+     */
+    public byte[] get(String certificateId, Renderer renderer) throws IOException {
+        synchronized (entries) {
+            byte[] cached = entries.get(certificateId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(certificateId, mine);
+        if (running != null) {
+            return await(running);
+        }
+
+        misses.incrementAndGet();
+        try {
+            byte[] pdf = renderer.render();
+            put(certificateId, pdf);
+            mine.complete(pdf);
+            return pdf;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(certificateId);
+        }
+    }
+
+    /**
+     * Store an already rendered PDF
+     */
+    public void put(String certificateId, byte[] pdf) {
+        if (pdf.length > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            byte[] previous = entries.put(certificateId, pdf);
+            if (previous != null) {
+                totalBytes -= previous.length;
+            }
+            totalBytes += pdf.length;
+
+            Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, byte[]> entry = eldest.next();
+                totalBytes -= entry.getValue().length;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Drop a cached PDF
+     */
+    public void invalidate(String certificateId) {
+        take(certificateId);
+    }
+
+    /**
+     * Remove a cached PDF and return it, or null if it is not cached
+     */
+    public byte[] take(String certificateId) {
+        synchronized (entries) {
+            byte[] removed = entries.remove(certificateId);
+            if (removed != null) {
+                totalBytes -= removed.length;
+            }
+            return removed;
+        }
+    }
+
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return CacheStats.builder()
+                .name("rendered-pdf")
+                .size(entries.size())
+                .hits(hits.get())
+                .misses(misses.get())
+                .evictions(evictions.get())
+                .build();
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> running) throws IOException {
+        try {
+            hits.incrementAndGet();
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for PDF rendering", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("PDF rendering failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
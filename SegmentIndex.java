@@ -0,0 +1,297 @@
+package com.certificate.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Memory-mapped open-addressing hash table from content hash to segment position.
+ *
+ * Layout: a 64-byte header (magic, version, capacity, live and occupied slot counts, a building flag)
+ * followed by fixed 64-byte slots: hash (32), state (1), segment (int @36), offset (long @40),
+ * length (int @48), reference count (int @52). A slot's state byte is written last, so a torn write
+ * leaves an empty slot. Not thread-safe; {@link SegmentStorage} serialises access.
+ *
+ * Growing writes a new generation file ({@code index.dat}, then {@code index-000001.dat}, ...) rather
+ * than replacing the mapped file, which Windows refuses. A generation is flagged as building until it
+ * is complete; opening picks the newest complete generation and deletes the others.
+ */
+final class SegmentIndex implements Closeable {
+
+    static final int HASH_LENGTH = 32;
+
+    private static final int MAGIC = 0x43455254;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 64;
+    private static final double MAX_LOAD = 0.7;
+    private static final int BUILDING = 20;
+    private static final Pattern FILE_NAME = Pattern.compile("index(?:-(\\d{6}))?\\.dat");
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte REMOVED = 2;
+
+    private static final int STATE = 32;
+    private static final int SEGMENT = 36;
+    private static final int OFFSET = 40;
+    private static final int LENGTH = 48;
+    private static final int REFS = 52;
+
+    private final Path path;
+    private final int generation;
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int capacity;
+    private int live;
+    private int occupied;
+
+    private SegmentIndex(Path path, int generation, FileChannel channel, int capacity) throws IOException {
+        this.path = path;
+        this.generation = generation;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        this.live = map.getInt(12);
+        this.occupied = map.getInt(16);
+    }
+
+    /**
+     * Open the newest complete index in the directory, creating one with the given capacity
+     * (rounded up to a power of two) if there is none. Nothing is mapped yet, so older and
+     * unfinished generations are deleted.
+     */
+    static SegmentIndex open(Path directory, int initialCapacity) throws IOException {
+        TreeMap<Integer, Path> generations = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "index*.dat")) {
+            for (Path file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    generations.put(matcher.group(1) != null ? Integer.parseInt(matcher.group(1)) : 0, file);
+                }
+            }
+        }
+
+        SegmentIndex opened = null;
+        for (int generation : generations.descendingKeySet()) {
+            Path file = generations.get(generation);
+            if (opened == null) {
+                opened = openComplete(file, generation);
+                if (opened != null) {
+                    continue;
+                }
+            }
+            Files.delete(file);
+        }
+        if (opened != null) {
+            return opened;
+        }
+        SegmentIndex created = create(directory.resolve(fileName(0)), 0,
+            Integer.highestOneBit(Math.max(16, initialCapacity - 1)) << 1);
+        created.map.put(BUILDING, (byte) 0);
+        return created;
+    }
+
+    /**
+     * Open an index file, or return null if it was left unfinished by a crash while growing
+     */
+    private static SegmentIndex openComplete(Path file, int generation) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a segment index: " + file);
+        }
+        if (header.get(BUILDING) != 0) {
+            channel.close();
+            return null;
+        }
+        return new SegmentIndex(file, generation, channel, header.getInt(8));
+    }
+
+    /**
+     * New index file, flagged as building until the caller clears the flag
+     */
+    private static SegmentIndex create(Path file, int generation, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SegmentIndex index = new SegmentIndex(file, generation, channel, capacity);
+        index.map.putInt(0, MAGIC);
+        index.map.putInt(4, VERSION);
+        index.map.putInt(8, capacity);
+        index.map.put(BUILDING, (byte) 1);
+        return index;
+    }
+
+    private static String fileName(int generation) {
+        return generation == 0 ? "index.dat" : String.format("index-%06d.dat", generation);
+    }
+
+    /**
+     * Slot holding the hash, or -1
+     */
+    int find(byte[] hash) {
+        int mask = capacity - 1;
+        int slot = home(hash);
+        for (int probe = 0; probe < capacity; probe++) {
+            int base = base(slot);
+            byte state = map.get(base + STATE);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == USED && hashEquals(base, hash)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Add an entry for a hash that is not present, with one reference
+     */
+    int insert(byte[] hash, int segment, long offset, int length) {
+        int mask = capacity - 1;
+        int slot = home(hash);
+        while (map.get(base(slot) + STATE) == USED) {
+            slot = (slot + 1) & mask;
+        }
+        int base = base(slot);
+        if (map.get(base + STATE) == EMPTY) {
+            occupied++;
+        }
+        live++;
+        map.put(base, hash);
+        map.putInt(base + SEGMENT, segment);
+        map.putLong(base + OFFSET, offset);
+        map.putInt(base + LENGTH, length);
+        map.putInt(base + REFS, 1);
+        map.put(base + STATE, USED);
+        writeCounts();
+        return slot;
+    }
+
+    void remove(int slot) {
+        map.put(base(slot) + STATE, REMOVED);
+        live--;
+        writeCounts();
+    }
+
+    void relocate(int slot, int segment, long offset) {
+        int base = base(slot);
+        map.putInt(base + SEGMENT, segment);
+        map.putLong(base + OFFSET, offset);
+    }
+
+    int addReference(int slot, int delta) {
+        int base = base(slot);
+        int refs = map.getInt(base + REFS) + delta;
+        map.putInt(base + REFS, refs);
+        return refs;
+    }
+
+    int segment(int slot) {
+        return map.getInt(base(slot) + SEGMENT);
+    }
+
+    long offset(int slot) {
+        return map.getLong(base(slot) + OFFSET);
+    }
+
+    int length(int slot) {
+        return map.getInt(base(slot) + LENGTH);
+    }
+
+    /**
+     * Visit every live slot
+     */
+    void forEachLive(IntConsumer action) {
+        for (int slot = 0; slot < capacity; slot++) {
+            if (map.get(base(slot) + STATE) == USED) {
+                action.accept(slot);
+            }
+        }
+    }
+
+    boolean needsGrowth() {
+        return occupied + 1 > capacity * MAX_LOAD;
+    }
+
+    /**
+     * Rehash live entries into the next generation with twice the capacity and close this one.
+     * This generation's file is deleted if possible; while still mapped it is left for the next open.
+     */
+    SegmentIndex grow() throws IOException {
+        Path next = path.resolveSibling(fileName(generation + 1));
+        Files.deleteIfExists(next);
+        SegmentIndex bigger = create(next, generation + 1, capacity * 2);
+        byte[] hash = new byte[HASH_LENGTH];
+        forEachLive(slot -> {
+            map.get(base(slot), hash);
+            int copy = bigger.insert(hash, segment(slot), offset(slot), length(slot));
+            bigger.addReference(copy, map.getInt(base(slot) + REFS) - 1);
+        });
+        // Entries first, then the flag that makes this generation the one to open
+        bigger.force();
+        bigger.map.put(BUILDING, (byte) 0);
+        bigger.force();
+
+        close();
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            // Windows keeps a mapped file until the mapping is collected
+        }
+        return bigger;
+    }
+
+    int getLive() {
+        return live;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    void force() {
+        map.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int home(byte[] hash) {
+        int h = ((hash[0] & 0xff) << 24) | ((hash[1] & 0xff) << 16) | ((hash[2] & 0xff) << 8) | (hash[3] & 0xff);
+        return h & (capacity - 1);
+    }
+
+    private int base(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private boolean hashEquals(int base, byte[] hash) {
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            if (map.get(base + i) != hash[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeCounts() {
+        map.putInt(12, live);
+        map.putInt(16, occupied);
+    }
+}
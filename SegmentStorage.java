@@ -0,0 +1,438 @@
+package com.certificate.service;
+
+import com.certificate.dto.StorageCompactionResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Packed storage backend: blobs are appended to large segment files instead of one file each.
+ *
+ * A memory-mapped hash index ({@link SegmentIndex}) maps each blob's SHA-256 to its segment, offset
+ * and length, with a reference count so identical content is stored once. Locations are
+ * {@code segment:<sha256>.<ext>}, so compaction can move blobs without touching certificate rows.
+ * Reads of sealed segments slice a read-only mapping of the file; nothing is copied until the
+ * response is written.
+ *
+ * The active segment is not mapped: blobs are appended through its channel, and both the blob and
+ * its index entry are forced to disk before {@link #store} returns the location, so a committed row
+ * never points at content lost in a crash. Blobs in the active segment are read with a copy.
+ * When content is released and a sealed segment's dead share reaches the compaction ratio, its live
+ * blobs are copied into the active segment in the background and the old segment file is deleted.
+ * Readers may still be streaming slices of its mapping, and a mapped file cannot be deleted on Windows;
+ * such a segment is marked retired instead and deleted on a later compaction or on the next start.
+ */
+@Component
+@ConditionalOnProperty(name = "certificate.storage.backend", havingValue = "segments")
+@Slf4j
+public class SegmentStorage implements CertificateStorage {
+
+    static final String LOCATION_PREFIX = "segment:";
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{6})\\.dat");
+    private static final Pattern RETIRED_NAME = Pattern.compile("segment-(\\d{6})\\.retired");
+    private static final Pattern LOCATION = Pattern.compile("segment:([0-9a-f]{64})\\.[a-z0-9]+");
+
+    private final Path directory;
+    private final int maxSegmentBytes;
+    private final double compactRatio;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> segmentSizes = new HashMap<>();
+    private final Map<Integer, Long> liveBytes = new HashMap<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "segment-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SegmentIndex index;
+    private FileChannel activeChannel;
+    private int activeSegment;
+    private long activeSize;
+
+    public SegmentStorage(@Value("${certificate.storage.path}") String storagePath,
+                          @Value("${certificate.storage.segment.max-bytes:268435456}") int maxSegmentBytes,
+                          @Value("${certificate.storage.segment.index-capacity:65536}") int indexCapacity,
+                          @Value("${certificate.storage.segment.compact-ratio:0.5}") double compactRatio) throws IOException {
+        this.directory = Paths.get(storagePath, "segments");
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.compactRatio = compactRatio;
+
+        Files.createDirectories(directory);
+        this.index = SegmentIndex.open(directory, indexCapacity);
+
+        // Nothing is mapped yet, so segments retired before the last shutdown can go now
+        deleteRetiredSegments();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.dat")) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && !Files.exists(retiredMarker(Integer.parseInt(matcher.group(1))))) {
+                    segmentSizes.put(Integer.parseInt(matcher.group(1)), Files.size(file));
+                }
+            }
+        }
+        index.forEachLive(slot -> liveBytes.merge(index.segment(slot), (long) index.length(slot), Long::sum));
+
+        int newest = segmentSizes.keySet().stream().max(Integer::compare).orElse(1);
+        openActive(newest);
+        log.info("Segment storage opened: {} segments, {} blobs, active segment {} at {} bytes",
+            segmentSizes.size(), index.getLive(), activeSegment, activeSize);
+    }
+
+    @Override
+    public String store(String extension, ContentWriter writer) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        writer.writeTo(buffer);
+        byte[] content = buffer.toByteArray();
+        if (content.length > maxSegmentBytes) {
+            throw new IOException("Content of " + content.length + " bytes exceeds the segment size");
+        }
+
+        byte[] hash = sha256().digest(content);
+        String location = LOCATION_PREFIX + HexFormat.of().formatHex(hash) + "." + extension;
+
+        lock.writeLock().lock();
+        try {
+            int slot = index.find(hash);
+            if (slot >= 0) {
+                index.addReference(slot, 1);
+                index.force();
+                return location;
+            }
+            long offset = append(content);
+            activeChannel.force(false);
+            if (index.needsGrowth()) {
+                index = index.grow();
+                log.info("Segment index grown to {} slots", index.getCapacity());
+            }
+            index.insert(hash, activeSegment, offset, content.length);
+            // The location is about to be committed with its certificate row
+            index.force();
+            return location;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Resource load(String location) {
+        byte[] hash = parse(location);
+        if (hash == null) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            int slot = index.find(hash);
+            if (slot < 0) {
+                return null;
+            }
+            int segment = index.segment(slot);
+            long offset = index.offset(slot);
+            int length = index.length(slot);
+            ByteBuffer content = segment == activeSegment
+                ? readActive(offset, length)
+                : mapSealed(segment).slice((int) offset, length);
+            return new ByteBufferResource(content, location, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isManaged(String location) {
+        return location != null && LOCATION.matcher(location).matches();
+    }
+
+    @Override
+    public String contentHash(String location) {
+        byte[] hash = parse(location);
+        return hash != null ? HexFormat.of().formatHex(hash) : null;
+    }
+
+    @Override
+    public void release(String location) {
+        byte[] hash = parse(location);
+        if (hash == null) {
+            return;
+        }
+
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            int slot = index.find(hash);
+            if (slot < 0 || index.addReference(slot, -1) > 0) {
+                return;
+            }
+            int segment = index.segment(slot);
+            liveBytes.merge(segment, -(long) index.length(slot), Long::sum);
+            index.remove(slot);
+            compact = shouldCompact(segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (compact) {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException | RuntimeException e) {
+                    log.error("Segment compaction failed", e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public StorageCompactionResult compact() throws IOException {
+        long start = System.currentTimeMillis();
+        int segments = 0;
+        int moved = 0;
+        long reclaimed = 0;
+
+        lock.writeLock().lock();
+        try {
+            deleteRetiredSegments();
+            for (int segment : new ArrayList<>(segmentSizes.keySet())) {
+                if (!shouldCompact(segment)) {
+                    continue;
+                }
+                List<Integer> slots = new ArrayList<>();
+                index.forEachLive(slot -> {
+                    if (index.segment(slot) == segment) {
+                        slots.add(slot);
+                    }
+                });
+
+                long[] offsets = new long[slots.size()];
+                int[] targets = new int[slots.size()];
+                try (FileChannel source = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                    for (int i = 0; i < slots.size(); i++) {
+                        ByteBuffer content = ByteBuffer.allocate(index.length(slots.get(i)));
+                        readFully(source, content, index.offset(slots.get(i)));
+                        offsets[i] = append(content.array());
+                        targets[i] = activeSegment;
+                    }
+                }
+                // New copies must be durable before the index points at them,
+                // and the index before the old segment goes
+                activeChannel.force(false);
+                for (int i = 0; i < slots.size(); i++) {
+                    index.relocate(slots.get(i), targets[i], offsets[i]);
+                }
+                index.force();
+
+                long size = segmentSizes.remove(segment);
+                long live = liveBytes.getOrDefault(segment, 0L);
+                liveBytes.remove(segment);
+                mappings.remove(segment);
+                retire(segment);
+
+                segments++;
+                moved += slots.size();
+                reclaimed += size - live;
+                log.info("Compacted segment {}: moved {} blobs, reclaimed {} bytes", segment, slots.size(), size - live);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return StorageCompactionResult.builder()
+            .segmentsCompacted(segments)
+            .blobsMoved(moved)
+            .bytesReclaimed(reclaimed)
+            .durationMillis(System.currentTimeMillis() - start)
+            .build();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        compactor.shutdown();
+        lock.writeLock().lock();
+        try {
+            activeChannel.force(true);
+            activeChannel.close();
+            index.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Append to the active segment, sealing it first if the content does not fit
+     */
+    private long append(byte[] content) throws IOException {
+        if (activeSize + content.length > maxSegmentBytes) {
+            seal();
+            openActive(activeSegment + 1);
+        }
+        long offset = activeSize;
+        ByteBuffer source = ByteBuffer.wrap(content);
+        while (source.hasRemaining()) {
+            activeChannel.write(source, offset + source.position());
+        }
+        activeSize += content.length;
+        segmentSizes.put(activeSegment, activeSize);
+        liveBytes.merge(activeSegment, (long) content.length, Long::sum);
+        return offset;
+    }
+
+    /**
+     * Open a segment for appending. Its used length is the end of the last indexed blob; anything
+     * after that was never indexed (e.g. a crash before the index entry was written) and is cut off.
+     */
+    private void openActive(int segment) throws IOException {
+        activeSegment = segment;
+        activeChannel = FileChannel.open(segmentPath(segment),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long[] end = {0};
+        index.forEachLive(slot -> {
+            if (index.segment(slot) == segment) {
+                end[0] = Math.max(end[0], index.offset(slot) + index.length(slot));
+            }
+        });
+        activeSize = end[0];
+        if (activeChannel.size() > activeSize) {
+            activeChannel.truncate(activeSize);
+        }
+        segmentSizes.put(segment, activeSize);
+    }
+
+    /**
+     * Flush the active segment and close it; from now on it is only read, through a mapping
+     */
+    private void seal() throws IOException {
+        activeChannel.force(true);
+        activeChannel.close();
+    }
+
+    /**
+     * Copy a blob out of the active segment, which is still being appended to and so is not mapped
+     */
+    private ByteBuffer readActive(long offset, int length) {
+        ByteBuffer content = ByteBuffer.allocate(length);
+        try {
+            readFully(activeChannel, content, offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read segment " + activeSegment, e);
+        }
+        content.flip();
+        return content;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Segment ends before the indexed blob");
+            }
+        }
+    }
+
+    /**
+     * Delete a compacted segment, or mark it retired if the file is still mapped by a reader
+     * (Windows refuses to delete mapped files) so a later pass deletes it
+     */
+    private void retire(int segment) throws IOException {
+        try {
+            Files.delete(segmentPath(segment));
+        } catch (IOException e) {
+            Path marker = retiredMarker(segment);
+            if (!Files.exists(marker)) {
+                Files.createFile(marker);
+            }
+            log.info("Segment {} is still in use; it will be deleted later", segment);
+        }
+    }
+
+    private void deleteRetiredSegments() throws IOException {
+        try (DirectoryStream<Path> markers = Files.newDirectoryStream(directory, "segment-*.retired")) {
+            for (Path marker : markers) {
+                Matcher matcher = RETIRED_NAME.matcher(marker.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(segmentPath(Integer.parseInt(matcher.group(1))));
+                    Files.delete(marker);
+                } catch (IOException e) {
+                    log.debug("Retired segment {} not deleted yet: {}", matcher.group(1), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private MappedByteBuffer mapSealed(int segment) {
+        return mappings.computeIfAbsent(segment, key -> {
+            try (FileChannel channel = FileChannel.open(segmentPath(key), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map segment " + key, e);
+            }
+        });
+    }
+
+    private boolean shouldCompact(int segment) {
+        long size = segmentSizes.getOrDefault(segment, 0L);
+        if (segment == activeSegment || size == 0) {
+            return false;
+        }
+        long dead = size - liveBytes.getOrDefault(segment, 0L);
+        return (double) dead / size >= compactRatio;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("segment-%06d.dat", segment));
+    }
+
+    private Path retiredMarker(int segment) {
+        return directory.resolve(String.format("segment-%06d.retired", segment));
+    }
+
+    private byte[] parse(String location) {
+        if (location == null) {
+            return null;
+        }
+        Matcher matcher = LOCATION.matcher(location);
+        return matcher.matches() ? HexFormat.of().parseHex(matcher.group(1)) : null;
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
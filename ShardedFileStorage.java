@@ -0,0 +1,122 @@
+package com.certificate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed file storage.
+ * Each blob is named by the SHA-256 of its content and placed in two levels of hash-prefix
+ * directories ({@code <root>/<ext>/ab/cd/abcd….<ext>}), so no directory grows beyond a few
+ * hundred entries. Content is written to a temporary file and renamed into place, so readers never
+ * see partial files, and identical content (e.g. a re-issued certificate) is stored only once.
+ * Since blobs may be shared, released content is kept.
+ */
+@Component
+@ConditionalOnProperty(name = "certificate.storage.backend", havingValue = "files", matchIfMissing = true)
+@Slf4j
+public class ShardedFileStorage implements CertificateStorage {
+
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]+");
+
+    private final Path root;
+    private final Path tempDir;
+
+    public ShardedFileStorage(@Value("${certificate.storage.path}") String storagePath) {
+        this.root = Paths.get(storagePath).toAbsolutePath().normalize();
+        this.tempDir = root.resolve(".tmp");
+    }
+
+    @Override
+    public String store(String extension, ContentWriter writer) throws IOException {
+        Files.createDirectories(tempDir);
+        Path temp = Files.createTempFile(tempDir, "blob", ".part");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)), digest)) {
+                writer.writeTo(out);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = blobPath(hash, extension);
+            if (Files.exists(target)) {
+                log.debug("Blob {} already stored", target.getFileName());
+                return target.toString();
+            }
+
+            Files.createDirectories(target.getParent());
+            move(temp, target);
+            return target.toString();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Resource load(String location) {
+        if (location == null) {
+            return null;
+        }
+        FileSystemResource resource = new FileSystemResource(location);
+        return resource.exists() ? resource : null;
+    }
+
+    @Override
+    public boolean isManaged(String location) {
+        if (location == null) {
+            return false;
+        }
+        Path path = Paths.get(location).toAbsolutePath().normalize();
+        return path.startsWith(root) && BLOB_NAME.matcher(path.getFileName().toString()).matches();
+    }
+
+    @Override
+    public String contentHash(String location) {
+        if (!isManaged(location)) {
+            return null;
+        }
+        String name = Paths.get(location).getFileName().toString();
+        return name.substring(0, name.indexOf('.'));
+    }
+
+    private Path blobPath(String hash, String extension) {
+        return root.resolve(extension)
+            .resolve(hash.substring(0, 2))
+            .resolve(hash.substring(2, 4))
+            .resolve(hash + "." + extension);
+    }
+
+    private void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.certificate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of a storage compaction run
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageCompactionResult {
+    private int segmentsCompacted;
+    private int blobsMoved;
+    private long bytesReclaimed;
+    private long durationMillis;
+}
@@ -0,0 +1,47 @@
+package com.certificate.controller;
+
+import com.certificate.dto.StorageCompactionResult;
+import com.certificate.dto.StorageMigrationResult;
+import com.certificate.service.CertificateStorage;
+import com.certificate.service.StorageMigrationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST API for certificate file storage maintenance
+ */
+@RestController
+@RequestMapping("/api/admin/storage")
+@RequiredArgsConstructor
+@Slf4j
+public class StorageController {
+
+    private final StorageMigrationService storageMigrationService;
+    private final CertificateStorage certificateStorage;
+
+    /**
+     * Move files from older layouts into the current storage backend
+     */
+    @PostMapping("/migrate")
+    public ResponseEntity<StorageMigrationResult> migrate() {
+        return ResponseEntity.ok(storageMigrationService.migrate());
+    }
+
+    /**
+     * Reclaim space held by revoked certificates' files (packed segment storage only)
+     */
+    @PostMapping("/compact")
+    public ResponseEntity<StorageCompactionResult> compact() {
+        try {
+            return ResponseEntity.ok(certificateStorage.compact());
+        } catch (Exception e) {
+            log.error("Storage compaction failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.certificate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of a storage layout migration run
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageMigrationResult {
+    private int certificatesScanned;
+    private int certificatesUpdated;
+    private int filesMigrated;
+    private int filesAlreadyMigrated;
+    private int filesMissing;
+    private int filesFailed;
+    private long durationMillis;
+}
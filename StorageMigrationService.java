@@ -0,0 +1,133 @@
+package com.certificate.service;
+
+import com.certificate.dto.StorageMigrationResult;
+import com.certificate.repository.CertificateStorageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Moves certificate files written under an older layout (e.g. flat {@code <id>.pdf} and
+ * {@code qr/<id>_qr.png}) into the current storage backend.
+ * Each file is copied into storage, the row is repointed, and only then is the old file deleted,
+ * so an interrupted run can simply be started again.
+ */
+@Service
+@Slf4j
+public class StorageMigrationService {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final CertificateStorageRepository certificateStorageRepository;
+    private final CertificateStorage certificateStorage;
+    private final TransactionTemplate transactionTemplate;
+
+    public StorageMigrationService(CertificateStorageRepository certificateStorageRepository,
+                                   CertificateStorage certificateStorage,
+                                   PlatformTransactionManager transactionManager) {
+        this.certificateStorageRepository = certificateStorageRepository;
+        this.certificateStorage = certificateStorage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Migrate all certificates' files into the current storage layout
+     */
+    public synchronized StorageMigrationResult migrate() {
+        long start = System.currentTimeMillis();
+        Run run = new Run();
+
+        long afterId = 0;
+        List<CertificateStorageRepository.StoragePathsView> page;
+        do {
+            page = certificateStorageRepository.findStoragePathsAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+            for (CertificateStorageRepository.StoragePathsView row : page) {
+                afterId = row.getId();
+                migrateCertificate(row, run);
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        StorageMigrationResult result = StorageMigrationResult.builder()
+            .certificatesScanned(run.scanned)
+            .certificatesUpdated(run.updated)
+            .filesMigrated(run.migrated)
+            .filesAlreadyMigrated(run.alreadyMigrated)
+            .filesMissing(run.missing)
+            .filesFailed(run.failed)
+            .durationMillis(System.currentTimeMillis() - start)
+            .build();
+        log.info("Storage migration finished: {}", result);
+        return result;
+    }
+
+    private void migrateCertificate(CertificateStorageRepository.StoragePathsView row, Run run) {
+        run.scanned++;
+        List<Path> replaced = new ArrayList<>();
+        String filePath = migrateFile(row.getFilePath(), "pdf", replaced, run);
+        String qrCodePath = migrateFile(row.getQrCodePath(), "png", replaced, run);
+
+        if (Objects.equals(filePath, row.getFilePath()) && Objects.equals(qrCodePath, row.getQrCodePath())) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+            certificateStorageRepository.updateStoragePaths(row.getId(), filePath, qrCodePath));
+        run.updated++;
+
+        for (Path old : replaced) {
+            try {
+                Files.deleteIfExists(old);
+            } catch (IOException e) {
+                log.warn("Could not delete migrated file {}", old, e);
+            }
+        }
+    }
+
+    /**
+     * Copy one legacy file into storage, returning the location to record (unchanged if nothing to do)
+     */
+    private String migrateFile(String location, String extension, List<Path> replaced, Run run) {
+        if (location == null) {
+            return null;
+        }
+        if (certificateStorage.isManaged(location)) {
+            run.alreadyMigrated++;
+            return location;
+        }
+
+        Path source = Paths.get(location);
+        if (!Files.isRegularFile(source)) {
+            run.missing++;
+            return location;
+        }
+
+        try {
+            String stored = certificateStorage.store(extension, out -> Files.copy(source, out));
+            replaced.add(source);
+            run.migrated++;
+            return stored;
+        } catch (IOException e) {
+            log.error("Failed to migrate {}", source, e);
+            run.failed++;
+            return location;
+        }
+    }
+
+    private static class Run {
+        private int scanned;
+        private int updated;
+        private int migrated;
+        private int alreadyMigrated;
+        private int missing;
+        private int failed;
+    }
+}
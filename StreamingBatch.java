@@ -0,0 +1,155 @@
+package com.certificate.service;
+
+import com.certificate.dto.BatchGenerationResult;
+import com.certificate.dto.CertificateRequest;
+import com.certificate.dto.CertificateResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Open batch that accepts requests one at a time while earlier rows are already rendering.
+ * At most {@code window} rows are in flight; {@link #submit} blocks once the window is
+ * full, so a fast producer (e.g. a file parser) is held back instead of piling up rows.
+ * Not thread-safe for producers: submit and finish must be called from one thread.
+ */
+@Slf4j
+public class StreamingBatch {
+
+    private final BatchWorkerPool pool;
+    private final Function<CertificateRequest, CertificateResponse> generator;
+    private final Runnable onFinish;
+    private final BatchProgressListener listener;
+    private final Semaphore inFlight;
+    private final int window;
+
+    private final Map<Integer, CertificateResponse> certificates = new ConcurrentSkipListMap<>();
+    private final ConcurrentLinkedQueue<BatchGenerationResult.Failure> failures = new ConcurrentLinkedQueue<>();
+    private int submitted;
+
+    StreamingBatch(BatchWorkerPool pool,
+                   Function<CertificateRequest, CertificateResponse> generator,
+                   Runnable onFinish,
+                   BatchProgressListener listener,
+                   int window) {
+        this.pool = pool;
+        this.generator = generator;
+        this.onFinish = onFinish;
+        this.listener = listener;
+        this.window = window;
+        this.inFlight = new Semaphore(window);
+    }
+
+    /**
+     * Queue one request, blocking while the in-flight window is full
+     */
+    public void submit(CertificateRequest request) {
+        submit(request, null);
+    }
+
+    /**
+     * Queue one request; onIssued (if given) runs on the worker once the row's certificate is stored
+     */
+    public void submit(CertificateRequest request, Consumer<CertificateResponse> onIssued) {
+        int rowNumber = ++submitted;
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recordFailure(toFailure(rowNumber, request, e));
+            return;
+        }
+
+        try {
+            pool.submit(() -> {
+                try {
+                    CertificateResponse response = generator.apply(request);
+                    certificates.put(rowNumber, response);
+                    listener.onSuccess(rowNumber, response);
+                    if (onIssued != null) {
+                        runIssuedHook(onIssued, rowNumber, response);
+                    }
+                } catch (Throwable e) {
+                    // Errors too: the pool's Future would swallow them and the row would vanish
+                    Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+                    recordFailure(toFailure(rowNumber, request, cause));
+                } finally {
+                    inFlight.release();
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            recordFailure(toFailure(rowNumber, request, e));
+        }
+    }
+
+    /**
+     * Wait for all submitted rows, run the completion hook and collect the outcome in row order
+     */
+    public BatchGenerationResult finish() {
+        try {
+            inFlight.acquire(window);
+            inFlight.release(window);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for {} in-flight rows", window - inFlight.availablePermits());
+        }
+
+        try {
+            onFinish.run();
+        } catch (RuntimeException e) {
+            log.error("Batch completion hook failed", e);
+        }
+
+        List<BatchGenerationResult.Failure> sortedFailures = new ArrayList<>(failures);
+        sortedFailures.sort(Comparator.comparingInt(BatchGenerationResult.Failure::getRowNumber));
+
+        return BatchGenerationResult.builder()
+            .totalRequested(submitted)
+            .certificates(new ArrayList<>(certificates.values()))
+            .failures(sortedFailures)
+            .build();
+    }
+
+    /**
+     * Number of rows submitted so far
+     */
+    public int getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * The row itself succeeded, so a failing hook is logged rather than reported as a row failure
+     */
+    private void runIssuedHook(Consumer<CertificateResponse> onIssued, int rowNumber, CertificateResponse response) {
+        try {
+            onIssued.accept(response);
+        } catch (RuntimeException e) {
+            log.error("Post-issue hook failed for row {} ({})", rowNumber, response.getCertificateId(), e);
+        }
+    }
+
+    private void recordFailure(BatchGenerationResult.Failure failure) {
+        failures.add(failure);
+        listener.onFailure(failure);
+    }
+
+    private BatchGenerationResult.Failure toFailure(int rowNumber, CertificateRequest request, Throwable cause) {
+        return BatchGenerationResult.Failure.builder()
+            .rowNumber(rowNumber)
+            .recipientName(request.getRecipientName())
+            .recipientEmail(request.getRecipientEmail())
+            .error(cause != null ? cause.getMessage() : "Unknown error")
+            .build();
+    }
+}
@@ -0,0 +1,178 @@
+package com.certificate.service;
+
+import com.certificate.dto.CacheStats;
+import com.certificate.model.CertificateTemplate;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.geom.PageSize;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-template cache of render assets (fonts, decoded background, colors, page geometry).
+ * Entries are keyed by template id and a version derived from the fields that affect
+ * rendering, and are dropped explicitly when TemplateService changes or deletes a template.
+ */
+@Component
+@Slf4j
+public class TemplateAssetCache {
+
+    private static final PageSize PAGE_SIZE = PageSize.A4.rotate();
+
+    private final Map<Key, TemplateRenderAssets> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Value("${certificate.render-cache.max-templates:64}")
+    private int maxTemplates;
+
+    /**
+     * Get render assets for a template, loading them on first use
+     */
+    public TemplateRenderAssets get(CertificateTemplate template) {
+        Key key = Key.of(template);
+        TemplateRenderAssets assets = cache.get(key);
+        if (assets != null) {
+            hits.incrementAndGet();
+            return assets;
+        }
+
+        assets = cache.computeIfAbsent(key, k -> {
+            misses.incrementAndGet();
+            return load(template);
+        });
+        evictIfOversized(key);
+        return assets;
+    }
+
+    /**
+     * Drop every cached version of a template
+     */
+    public void invalidate(Long templateId) {
+        int removed = 0;
+        for (Key key : cache.keySet()) {
+            if (Objects.equals(key.templateId(), templateId) && cache.remove(key) != null) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            evictions.addAndGet(removed);
+            log.info("Render assets invalidated for template {}", templateId);
+        }
+    }
+
+    /**
+     * Drop all cached templates
+     */
+    public void clear() {
+        evictions.addAndGet(cache.size());
+        cache.clear();
+    }
+
+    public CacheStats getStats() {
+        return CacheStats.builder()
+            .name("template-assets")
+            .size(cache.size())
+            .hits(hits.get())
+            .misses(misses.get())
+            .evictions(evictions.get())
+            .build();
+    }
+
+    /**
+     * Parse fonts, decode the background and compute page geometry for a template
+     */
+    private TemplateRenderAssets load(CertificateTemplate template) {
+        try {
+            FontProgram regular = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+            FontProgram bold = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+
+            ImageData background = null;
+            float backgroundWidth = 0;
+            float backgroundHeight = 0;
+            if (template != null && template.getBackgroundPath() != null) {
+                background = loadBackground(template.getBackgroundPath());
+                if (background != null) {
+                    // Scale to fit the page, keeping the aspect ratio
+                    float scale = Math.min(PAGE_SIZE.getWidth() / background.getWidth(),
+                                           PAGE_SIZE.getHeight() / background.getHeight());
+                    backgroundWidth = background.getWidth() * scale;
+                    backgroundHeight = background.getHeight() * scale;
+                }
+            }
+
+            log.info("Render assets loaded for template {}", template != null ? template.getId() : "none");
+            return TemplateRenderAssets.builder()
+                .regularFontProgram(regular)
+                .boldFontProgram(bold)
+                .background(background)
+                .pageSize(PAGE_SIZE)
+                .backgroundWidth(backgroundWidth)
+                .backgroundHeight(backgroundHeight)
+                .titleColor(new DeviceRgb(0, 51, 102))
+                .recipientColor(new DeviceRgb(0, 102, 204))
+                .mutedColor(new DeviceRgb(128, 128, 128))
+                .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decode background image; a missing or undecodable file renders without background
+     */
+    private ImageData loadBackground(String backgroundPath) {
+        if (!new File(backgroundPath).exists()) {
+            return null;
+        }
+        try {
+            return ImageDataFactory.create(backgroundPath);
+        } catch (Exception e) {
+            log.warn("Could not load background image {}, rendering without it: {}", backgroundPath, e.getMessage());
+            return null;
+        }
+    }
+
+    private void evictIfOversized(Key justAdded) {
+        if (cache.size() <= maxTemplates) {
+            return;
+        }
+        for (Key key : cache.keySet()) {
+            if (cache.size() <= maxTemplates) {
+                break;
+            }
+            if (!key.equals(justAdded) && cache.remove(key) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Template id plus a version hash of the fields that change the rendered output
+     */
+    private record Key(Long templateId, int version) {
+        static Key of(CertificateTemplate template) {
+            if (template == null) {
+                return new Key(null, 0);
+            }
+            return new Key(template.getId(), Objects.hash(
+                template.getBackgroundPath(),
+                template.getBackgroundType(),
+                template.getFieldConfiguration()));
+        }
+    }
+}
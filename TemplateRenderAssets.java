@@ -0,0 +1,63 @@
+package com.certificate.service;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Parsed, document-independent render assets of one template version.
+ * Safe to share between threads: fonts are kept as font programs and turned into
+ * a {@link PdfFont} per document, since a PdfFont belongs to a single PdfDocument.
+ */
+@Getter
+@Builder
+public class TemplateRenderAssets {
+
+    private final FontProgram regularFontProgram;
+    private final FontProgram boldFontProgram;
+
+    /** Decoded background, or null when the template has none or it could not be decoded */
+    private final ImageData background;
+
+    private final PageSize pageSize;
+    private final float backgroundWidth;
+    private final float backgroundHeight;
+
+    private final DeviceRgb titleColor;
+    private final DeviceRgb recipientColor;
+    private final DeviceRgb mutedColor;
+
+    /** Pre-rendered static page, created on first use in stamp mode */
+    private volatile TemplateStamp stamp;
+
+    /**
+     * Get the pre-rendered static page, rendering it on first use
+     */
+    public TemplateStamp getStamp() {
+        TemplateStamp result = stamp;
+        if (result == null) {
+            synchronized (this) {
+                result = stamp;
+                if (result == null) {
+                    result = TemplateStamp.render(this);
+                    stamp = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    public PdfFont createRegularFont() {
+        return PdfFontFactory.createFont(regularFontProgram, PdfEncodings.WINANSI);
+    }
+
+    public PdfFont createBoldFont() {
+        return PdfFontFactory.createFont(boldFontProgram, PdfEncodings.WINANSI);
+    }
+}
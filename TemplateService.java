@@ -7,6 +7,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -27,6 +29,7 @@ import java.util.UUID;
 public class TemplateService {
 
     private final CertificateTemplateRepository templateRepository;
+    private final TemplateAssetCache templateAssetCache;
 
     @Value("${certificate.template.path}")
     private String templatePath;
@@ -110,7 +113,9 @@ public class TemplateService {
         template.setBackgroundType(backgroundType);
 
         log.info("Template background uploaded: {}", filename);
-        return templateRepository.save(template);
+        CertificateTemplate saved = templateRepository.save(template);
+        invalidateAssetsAfterCommit(templateId);
+        return saved;
     }
 
     /**
@@ -122,7 +127,9 @@ public class TemplateService {
             .orElseThrow(() -> new IllegalArgumentException("Template not found"));
 
         template.setFieldConfiguration(fieldConfiguration);
-        return templateRepository.save(template);
+        CertificateTemplate saved = templateRepository.save(template);
+        invalidateAssetsAfterCommit(templateId);
+        return saved;
     }
 
     /**
@@ -143,6 +150,7 @@ public class TemplateService {
         }
 
         templateRepository.delete(template);
+        invalidateAssetsAfterCommit(templateId);
         log.info("Template deleted: {}", templateId);
     }
 
@@ -165,6 +173,19 @@ public class TemplateService {
         });
     }
 
+    /**
+     * Drop cached render assets once the template change is committed, so a concurrent
+     * render cannot reload the old template and cache it again after the invalidation
+     */
+    private void invalidateAssetsAfterCommit(Long templateId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                templateAssetCache.invalidate(templateId);
+            }
+        });
+    }
+
     /**
      * Initialize default templates
      */
@@ -0,0 +1,59 @@
+package com.certificate.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Document;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Static part of a template (background, title, "presented to" line) rendered once
+ * into a single-page PDF. Each certificate copies that page into its own document
+ * as a Form XObject, which reuses the already-compressed background and text
+ * instead of re-encoding the image and re-running layout for every recipient.
+ */
+@Getter
+public class TemplateStamp {
+
+    private final byte[] pagePdf;
+
+    /** Y coordinate where the static content ends and per-recipient layout continues */
+    private final float contentTop;
+
+    private TemplateStamp(byte[] pagePdf, float contentTop) {
+        this.pagePdf = pagePdf;
+        this.contentTop = contentTop;
+    }
+
+    /**
+     * Render the static content of a template
+     */
+    static TemplateStamp render(TemplateRenderAssets assets) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        float contentTop;
+
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(out));
+             Document document = new Document(pdfDoc)) {
+            pdfDoc.setDefaultPageSize(assets.getPageSize());
+            PdfGenerationService.addStaticContent(
+                document, assets, assets.createRegularFont(), assets.createBoldFont());
+            contentTop = document.getRenderer().getCurrentArea().getBBox().getTop();
+        }
+
+        return new TemplateStamp(out.toByteArray(), contentTop);
+    }
+
+    /**
+     * Copy the pre-rendered page into a target document as a Form XObject
+     */
+    public PdfFormXObject copyTo(PdfDocument target) throws IOException {
+        try (PdfDocument source = new PdfDocument(new PdfReader(new ByteArrayInputStream(pagePdf)))) {
+            return source.getFirstPage().copyAsFormXObject(target);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.certificate.service;
+
+import com.certificate.dto.CacheStats;
+import com.certificate.model.Certificate;
+import com.certificate.repository.CertificateQueryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Hot cache for certificate verification (QR scans).
+ *
+ * Found certificates are kept in a bounded LRU with a TTL. Unknown IDs are rejected by a
+ * Bloom filter of all issued IDs without touching the database; before answering "absent",
+ * the filter pulls in rows issued since its last refresh (at most once per refresh interval),
+ * so certificates issued by other instances become verifiable within that interval.
+ *
+ * Revocations are recorded locally the moment they happen and are checked before the cache,
+ * so a revoked certificate is never served as valid by this instance. Revocations made by other
+ * instances are picked up by re-checking the status of the cached IDs in the database, at most
+ * once per revocation check interval, before a cache hit is served. A local revocation mark is
+ * dropped once its TTL has passed, since no entry cached before it can still be fresh by then.
+ */
+@Component
+@Slf4j
+public class VerificationCache {
+
+    private static final int FILTER_LOAD_PAGE_SIZE = 10_000;
+    private static final long FILTER_REFRESH_OVERLAP = 1_000;
+    private static final int REVOCATION_CHECK_CHUNK = 1_000;
+
+    private final CertificateQueryRepository certificateQueryRepository;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long filterExpectedIds;
+    private final long filterRefreshMillis;
+    private final long revocationCheckMillis;
+
+    private final Map<String, Entry> entries;
+    /** Revoked IDs and when their mark may be dropped */
+    private final Map<String, Long> revokedIds = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong filterRejections = new AtomicLong();
+
+    private volatile BloomFilter idFilter;
+    private volatile long filterHighWaterMark;
+    private volatile long filterRefreshedAt;
+    private volatile long revocationsCheckedAt = System.currentTimeMillis();
+
+    public VerificationCache(CertificateQueryRepository certificateQueryRepository,
+                             @Value("${certificate.verification.cache-size:10000}") int maxEntries,
+                             @Value("${certificate.verification.cache-ttl-seconds:600}") long ttlSeconds,
+                             @Value("${certificate.verification.filter-expected-ids:1000000}") long filterExpectedIds,
+                             @Value("${certificate.verification.filter-refresh-seconds:5}") long filterRefreshSeconds,
+                             @Value("${certificate.verification.revocation-check-seconds:5}") long revocationCheckSeconds) {
+        this.certificateQueryRepository = certificateQueryRepository;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.filterExpectedIds = filterExpectedIds;
+        this.filterRefreshMillis = filterRefreshSeconds * 1000;
+        this.revocationCheckMillis = revocationCheckSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > VerificationCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Look up a certificate for verification, loading it on a miss.
+     * Returns the certificate whatever its status; revoked IDs return empty.
+     */
+    public Optional<Certificate> lookup(String certificateId, Function<String, Optional<Certificate>> loader) {
+        if (certificateId == null || revokedIds.containsKey(certificateId)) {
+            return Optional.empty();
+        }
+
+        if (System.currentTimeMillis() - revocationsCheckedAt >= revocationCheckMillis) {
+            checkRevocationsIfStale();
+            if (revokedIds.containsKey(certificateId)) {
+                return Optional.empty();
+            }
+        }
+        Certificate cached = getFresh(certificateId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+
+        if (!mightExist(certificateId)) {
+            filterRejections.incrementAndGet();
+            return Optional.empty();
+        }
+
+        misses.incrementAndGet();
+        Optional<Certificate> loaded = loader.apply(certificateId);
+        loaded.ifPresent(certificate -> {
+            // Re-check: a revocation may have landed while loading
+            if (!revokedIds.containsKey(certificateId)) {
+                synchronized (entries) {
+                    entries.put(certificateId, new Entry(certificate, System.currentTimeMillis() + ttlMillis));
+                }
+            }
+        });
+        return loaded.filter(certificate -> !revokedIds.containsKey(certificateId));
+    }
+
+    /**
+     * Record a newly issued certificate ID in the existence filter
+     */
+    public void registerIssued(String certificateId) {
+        BloomFilter filter = idFilter;
+        if (filter != null) {
+            filter.add(certificateId);
+        }
+    }
+
+    /**
+     * Mark a certificate as revoked and drop it from the cache immediately.
+     * If called inside a transaction that rolls back, the mark is lifted again.
+     */
+    public void revoke(String certificateId) {
+        markRevoked(certificateId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        revokedIds.remove(certificateId);
+                    }
+                    invalidate(certificateId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drop a cached certificate
+     */
+    public void invalidate(String certificateId) {
+        synchronized (entries) {
+            entries.remove(certificateId);
+        }
+    }
+
+    public CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return CacheStats.builder()
+            .name("verification")
+            .size(size)
+            .hits(hits.get() + filterRejections.get())
+            .misses(misses.get())
+            .evictions(evictions.get())
+            .build();
+    }
+
+    private void markRevoked(String certificateId) {
+        revokedIds.put(certificateId, System.currentTimeMillis() + ttlMillis);
+        invalidate(certificateId);
+    }
+
+    /**
+     * Drop expired revocation marks, then mark cached certificates that were revoked elsewhere
+     */
+    private synchronized void checkRevocationsIfStale() {
+        // Concurrent hits queue up here; only the first one queries
+        long now = System.currentTimeMillis();
+        if (now - revocationsCheckedAt < revocationCheckMillis) {
+            return;
+        }
+        revokedIds.values().removeIf(dropAt -> dropAt < now);
+
+        List<String> cachedIds;
+        synchronized (entries) {
+            cachedIds = new ArrayList<>(entries.keySet());
+        }
+        for (int from = 0; from < cachedIds.size(); from += REVOCATION_CHECK_CHUNK) {
+            List<String> chunk = cachedIds.subList(from, Math.min(from + REVOCATION_CHECK_CHUNK, cachedIds.size()));
+            for (String revoked : certificateQueryRepository.findCertificateIdsInStatus(
+                    chunk, Certificate.CertificateStatus.REVOKED)) {
+                markRevoked(revoked);
+            }
+        }
+        revocationsCheckedAt = System.currentTimeMillis();
+    }
+
+    private Certificate getFresh(String certificateId) {
+        synchronized (entries) {
+            Entry entry = entries.get(certificateId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(certificateId);
+                return null;
+            }
+            return entry.certificate();
+        }
+    }
+
+    /**
+     * Check the existence filter, refreshing it with recently issued IDs before saying no
+     */
+    private boolean mightExist(String certificateId) {
+        BloomFilter filter = idFilter;
+        if (filter == null) {
+            filter = loadFilter();
+        }
+        if (filter.mightContain(certificateId)) {
+            return true;
+        }
+        if (System.currentTimeMillis() - filterRefreshedAt >= filterRefreshMillis) {
+            refreshFilterIfStale(filter);
+            return filter.mightContain(certificateId);
+        }
+        return false;
+    }
+
+    private synchronized void refreshFilterIfStale(BloomFilter filter) {
+        // Concurrent misses queue up here; only the first one queries
+        if (System.currentTimeMillis() - filterRefreshedAt >= filterRefreshMillis) {
+            refreshFilter(filter);
+        }
+    }
+
+    private synchronized BloomFilter loadFilter() {
+        if (idFilter == null) {
+            BloomFilter filter = new BloomFilter(filterExpectedIds, 0.01);
+            long loaded = refreshFilter(filter);
+            idFilter = filter;
+            log.info("Verification filter loaded with {} certificate IDs ({} KB)",
+                loaded, filter.sizeInBytes() / 1024);
+        }
+        return idFilter;
+    }
+
+    /**
+     * Add rows issued after the high-water mark, walking the primary key in pages.
+     * The last few keys below the mark are re-read, because concurrent inserts can
+     * commit out of key order and would otherwise be skipped for good.
+     */
+    private synchronized long refreshFilter(BloomFilter filter) {
+        long loaded = 0;
+        long afterId = Math.max(0, filterHighWaterMark - FILTER_REFRESH_OVERLAP);
+        List<CertificateQueryRepository.IdView> page;
+        do {
+            page = certificateQueryRepository.findIdsAfter(afterId, PageRequest.of(0, FILTER_LOAD_PAGE_SIZE));
+            for (CertificateQueryRepository.IdView row : page) {
+                filter.add(row.getCertificateId());
+                afterId = row.getId();
+            }
+            loaded += page.size();
+        } while (page.size() == FILTER_LOAD_PAGE_SIZE);
+        filterHighWaterMark = Math.max(filterHighWaterMark, afterId);
+        filterRefreshedAt = System.currentTimeMillis();
+        return loaded;
+    }
+
+    private record Entry(Certificate certificate, long expiresAt) {
+    }
+}
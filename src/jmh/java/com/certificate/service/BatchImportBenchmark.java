@@ -0,0 +1,74 @@
+package com.certificate.service;
+
+import com.certificate.dto.ImportReport;
+import com.opencsv.exceptions.CsvException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import parsing: whole CSV and .xlsx uploads, and date parsing with an inferred format
+ * (slashed values match the inferred month-first order; ISO and long-form values take the fallback path).
+ * Scores for the file benchmarks are uploads per second; divide by rows for rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchImportBenchmark {
+
+    @Param({"1000"})
+    private int rows;
+
+    private BatchImportService batchImportService;
+    private byte[] csv;
+    private byte[] xlsx;
+    private String[] dates;
+    private ImportSchema dateSchema;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        batchImportService = new BatchImportService(BenchmarkFixtures.metrics());
+        csv = BenchmarkFixtures.csv(rows);
+        xlsx = BenchmarkFixtures.xlsx(rows);
+        dates = BenchmarkFixtures.dates();
+        dateSchema = ImportSchema.infer(new String[] {"date"},
+            Arrays.stream(dates).map(date -> new String[] {date}).toList());
+    }
+
+    @Benchmark
+    public ImportReport streamCsv(Blackhole blackhole) throws IOException, CsvException {
+        return batchImportService.streamCsv(new ByteArrayInputStream(csv), blackhole::consume);
+    }
+
+    @Benchmark
+    public ImportReport streamExcel(Blackhole blackhole) throws IOException {
+        return batchImportService.streamExcel(new ByteArrayInputStream(xlsx), blackhole::consume);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public LocalDate parseDate() {
+        next = (next + 1) % dates.length;
+        String date = dates[next];
+        return date.isEmpty() ? null : dateSchema.parseDate(date);
+    }
+}
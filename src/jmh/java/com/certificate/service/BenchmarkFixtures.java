@@ -0,0 +1,216 @@
+package com.certificate.service;
+
+import com.certificate.model.Certificate;
+import com.certificate.model.CertificateTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.io.Resource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Shared fixtures for the JMH benchmarks: services wired by hand (no Spring context),
+ * storage that only counts bytes, and import files shaped like real uploads.
+ */
+final class BenchmarkFixtures {
+
+    static final String VERIFICATION_BASE_URL = "https://certificates.example.com/verify";
+
+    private static final String[] FIRST_NAMES = {
+        "Amelia", "Jonas", "Priya", "Mateo", "Chloé", "Oluwaseun", "Hannah", "Wei", "Søren", "Fatima"
+    };
+    private static final String[] LAST_NAMES = {
+        "García", "Müller", "Nakamura", "O'Connor", "Kowalski", "Okafor", "Rossi", "Johansson", "Nguyen", "Smith"
+    };
+    private static final String[] COURSES = {
+        "Advanced Java Programming", "Cloud Architecture Fundamentals", "Data Engineering with Spark",
+        "Secure Coding Practices", "Machine Learning in Production", "Agile Project Management"
+    };
+    /** Month-first is inferred; ISO and long-form dates take the fallback path */
+    private static final String[] DATES = {"03/15/2024", "11/02/2024", "2024-03-15", "March 15, 2024", ""};
+
+    static {
+        LoggingSystem.get(BenchmarkFixtures.class.getClassLoader())
+            .setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+    }
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A certificate with every text field filled, as issued from a typical import row
+     */
+    static Certificate certificate(int index) {
+        Random random = new Random(index);
+        return Certificate.builder()
+            .certificateId(CertificateIdAllocator.format(CertificateIdAllocator.scramble(index, 0x5DEECE66DL)))
+            .recipientName(pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES))
+            .recipientEmail("recipient" + index + "@example.com")
+            .courseName(pick(random, COURSES))
+            .achievementTitle("Certificate of Completion")
+            .completionDate(LocalDateTime.of(2024, 3, 15, 0, 0))
+            .issuerName("Example Academy")
+            .instructorName("Dr. " + pick(random, LAST_NAMES))
+            .issuedDate(LocalDateTime.of(2024, 3, 16, 9, 30))
+            .status(Certificate.CertificateStatus.ACTIVE)
+            .build();
+    }
+
+    /**
+     * The built-in default template (no background file)
+     */
+    static CertificateTemplate defaultTemplate() {
+        return CertificateTemplate.builder()
+            .id(1L)
+            .name("Default Template")
+            .description("Default certificate template")
+            .isDefault(true)
+            .build();
+    }
+
+    static PdfGenerationService pdfGenerationService(boolean stampTemplate, boolean writeQrPng) {
+        TemplateAssetCache templateAssetCache = new TemplateAssetCache();
+        setField(templateAssetCache, "maxTemplates", 64);
+        PdfGenerationService service = new PdfGenerationService(templateAssetCache, new CountingStorage(), metrics());
+        setField(service, "verificationBaseUrl", VERIFICATION_BASE_URL);
+        setField(service, "stampTemplate", stampTemplate);
+        setField(service, "writeQrPng", writeQrPng);
+        return service;
+    }
+
+    /**
+     * Metrics into an in-memory registry, so the benchmarks include the cost of recording them
+     */
+    static IssuanceMetrics metrics() {
+        return new IssuanceMetrics(new SimpleMeterRegistry());
+    }
+
+    static EmailService emailService() {
+        EmailService service = new EmailService(new JavaMailSenderImpl(), null);
+        setField(service, "fromEmail", "noreply@example.com");
+        return service;
+    }
+
+    /**
+     * CSV upload with the documented header and a mix of date formats
+     */
+    static byte[] csv(int rows) {
+        StringBuilder csv = new StringBuilder("name,email,course,achievement,date,issuer,instructor\n");
+        for (int i = 0; i < rows; i++) {
+            Certificate certificate = certificate(i);
+            csv.append('"').append(certificate.getRecipientName()).append('"').append(',')
+                .append(certificate.getRecipientEmail()).append(',')
+                .append('"').append(certificate.getCourseName()).append('"').append(',')
+                .append(certificate.getAchievementTitle()).append(',')
+                .append('"').append(DATES[i % DATES.length]).append('"').append(',')
+                .append(certificate.getIssuerName()).append(',')
+                .append(certificate.getInstructorName()).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * .xlsx upload with the same columns as {@link #csv}; dates are text cells
+     */
+    static byte[] xlsx(int rows) {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) {
+            SXSSFSheet sheet = workbook.createSheet("Recipients");
+            String[] header = {"name", "email", "course", "achievement", "date", "issuer", "instructor"};
+            Row headerRow = sheet.createRow(0);
+            for (int c = 0; c < header.length; c++) {
+                headerRow.createCell(c).setCellValue(header[c]);
+            }
+            for (int i = 0; i < rows; i++) {
+                Certificate certificate = certificate(i);
+                String[] values = {
+                    certificate.getRecipientName(), certificate.getRecipientEmail(), certificate.getCourseName(),
+                    certificate.getAchievementTitle(), DATES[i % DATES.length], certificate.getIssuerName(),
+                    certificate.getInstructorName()
+                };
+                Row row = sheet.createRow(i + 1);
+                for (int c = 0; c < values.length; c++) {
+                    row.createCell(c).setCellValue(values[c]);
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            workbook.dispose();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String[] dates() {
+        return DATES.clone();
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Inject an {@code @Value} field the way Spring would
+     */
+    private static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name, e);
+        }
+    }
+
+    /**
+     * Storage that discards content after counting it, so benchmarks measure rendering, not disk
+     */
+    static final class CountingStorage implements CertificateStorage {
+
+        private long bytes;
+
+        @Override
+        public String store(String extension, ContentWriter writer) throws IOException {
+            CountingOutputStream out = new CountingOutputStream();
+            writer.writeTo(out);
+            bytes += out.count;
+            return "bench:" + bytes + "." + extension;
+        }
+
+        @Override
+        public Resource load(String location) {
+            return null;
+        }
+
+        @Override
+        public boolean isManaged(String location) {
+            return location != null && location.startsWith("bench:");
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
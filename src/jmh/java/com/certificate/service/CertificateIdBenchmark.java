@@ -0,0 +1,35 @@
+package com.certificate.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-ID cost of generateUniqueCertificateId: the keyed permutation and CERT-XXXX-XXXX formatting.
+ * Block reservation is one database round trip per block and is not included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CertificateIdBenchmark {
+
+    private static final long SCRAMBLE_KEY = 0x9E3779B97F4A7C15L;
+
+    private int sequence;
+
+    @Benchmark
+    public String generateUniqueCertificateId() {
+        return CertificateIdAllocator.format(CertificateIdAllocator.scramble(sequence++, SCRAMBLE_KEY));
+    }
+}
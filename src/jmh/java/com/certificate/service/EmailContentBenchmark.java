@@ -0,0 +1,48 @@
+package com.certificate.service;
+
+import com.certificate.model.Certificate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the HTML body of the certificate email
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailContentBenchmark {
+
+    private static final int CERTIFICATES = 256;
+
+    private EmailService emailService;
+    private Certificate[] certificates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        emailService = BenchmarkFixtures.emailService();
+        certificates = new Certificate[CERTIFICATES];
+        for (int i = 0; i < CERTIFICATES; i++) {
+            certificates[i] = BenchmarkFixtures.certificate(i);
+        }
+    }
+
+    @Benchmark
+    public String buildEmailContent() {
+        next = (next + 1) % CERTIFICATES;
+        return emailService.buildEmailContent(certificates[next]);
+    }
+}
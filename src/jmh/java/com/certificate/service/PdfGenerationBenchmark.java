@@ -0,0 +1,62 @@
+package com.certificate.service;
+
+import com.certificate.model.Certificate;
+import com.certificate.model.CertificateTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full certificate PDF generation, including the QR code and PNG.
+ * Storage only counts bytes, so the numbers are rendering cost without disk I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfGenerationBenchmark {
+
+    private static final int CERTIFICATES = 256;
+
+    /** Per-certificate layout vs. stamping the pre-rendered template */
+    @Param({"false", "true"})
+    private boolean stampTemplate;
+
+    private PdfGenerationService pdfGenerationService;
+    private CertificateTemplate template;
+    private Certificate[] certificates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        pdfGenerationService = BenchmarkFixtures.pdfGenerationService(stampTemplate, true);
+        template = BenchmarkFixtures.defaultTemplate();
+        certificates = new Certificate[CERTIFICATES];
+        for (int i = 0; i < CERTIFICATES; i++) {
+            certificates[i] = BenchmarkFixtures.certificate(i);
+        }
+    }
+
+    @Benchmark
+    public String generateCertificatePdf() throws IOException {
+        return pdfGenerationService.generateCertificatePdf(nextCertificate(), template);
+    }
+
+    private Certificate nextCertificate() {
+        next = (next + 1) % CERTIFICATES;
+        return certificates[next];
+    }
+}
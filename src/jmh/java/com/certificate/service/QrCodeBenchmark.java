@@ -0,0 +1,58 @@
+package com.certificate.service;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QR code encoding alone, and encoding plus PNG output (generateQRCode)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QrCodeBenchmark {
+
+    private static final int CERTIFICATES = 256;
+
+    private PdfGenerationService pdfGenerationService;
+    private String[] certificateIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        pdfGenerationService = BenchmarkFixtures.pdfGenerationService(false, true);
+        certificateIds = new String[CERTIFICATES];
+        for (int i = 0; i < CERTIFICATES; i++) {
+            certificateIds[i] = BenchmarkFixtures.certificate(i).getCertificateId();
+        }
+    }
+
+    @Benchmark
+    public String generateQRCode() {
+        return pdfGenerationService.generateQRCode(nextCertificateId());
+    }
+
+    @Benchmark
+    public BitMatrix encodeQRCode() throws WriterException {
+        return pdfGenerationService.encodeQRCode(nextCertificateId());
+    }
+
+    private String nextCertificateId() {
+        next = (next + 1) % CERTIFICATES;
+        return certificateIds[next];
+    }
+}
@@ -0,0 +1,33 @@
+package com.certificate.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One load-test run, stored as JSON so later runs can be compared against it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadTestReport {
+
+    private String startedAt;
+    private String javaVersion;
+    private int availableProcessors;
+    private long maxHeapMb;
+
+    /** Options the run was started with */
+    @Builder.Default
+    private Map<String, String> options = new LinkedHashMap<>();
+
+    @Builder.Default
+    private List<ScenarioResult> scenarios = new ArrayList<>();
+}
@@ -0,0 +1,494 @@
+package com.certificate.loadtest;
+
+import com.certificate.CertificateGenerationApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test.
+ *
+ * Starts the application in-process on a random port with an in-memory H2 database and
+ * {@link SmtpStub} as mail server, then drives the REST endpoints scenario by scenario with
+ * a fixed number of concurrent users. Each scenario is warmed up, then measured for a fixed
+ * time; the run is written to {@code <out>/loadtest-<timestamp>.json} and compared with the
+ * previous run in the same directory.
+ *
+ * Options are {@code key=value} arguments (see {@link #DEFAULTS}); {@code app.<property>=<value>}
+ * is passed to the application, e.g. {@code app.certificate.render.lazy=true}.
+ * Heap figures are for the whole JVM, which includes the load generator.
+ */
+@Slf4j
+public final class LoadTestRunner {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("scenarios", "generate,batch,import-csv,verify,download");
+        DEFAULTS.put("concurrency", "8");
+        DEFAULTS.put("warmup-seconds", "5");
+        DEFAULTS.put("duration-seconds", "20");
+        DEFAULTS.put("batch-size", "25");
+        DEFAULTS.put("csv-rows", "100");
+        DEFAULTS.put("out", "loadtest-results");
+    }
+
+    private static final DateTimeFormatter RUN_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int MAX_TRACKED_CERTIFICATES = 10_000;
+    private static final String[] COURSES = {
+        "Advanced Java Programming", "Cloud Architecture Fundamentals", "Data Engineering with Spark",
+        "Secure Coding Practices", "Machine Learning in Production", "Agile Project Management"
+    };
+
+    private final Map<String, String> options;
+    private final SmtpStub smtp;
+    private final String baseUrl;
+    private final int concurrency;
+    private final HttpClient http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<Issued> issued = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private LoadTestRunner(Map<String, String> options, SmtpStub smtp, String baseUrl) {
+        this.options = options;
+        this.smtp = smtp;
+        this.baseUrl = baseUrl;
+        this.concurrency = intOption("concurrency");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        // DevTools would restart the application in another class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Path workDir = Files.createTempDirectory("certificate-loadtest");
+
+        try (SmtpStub smtp = SmtpStub.start();
+             ConfigurableApplicationContext app = startApplication(options, smtp, workDir)) {
+            String port = app.getEnvironment().getProperty("local.server.port");
+            LoadTestRunner runner = new LoadTestRunner(options, smtp, "http://localhost:" + port);
+
+            Optional<LoadTestReport> previous = runner.loadPrevious();
+            LoadTestReport report = runner.run();
+            Path file = runner.store(report);
+            runner.printSummary(report, previous.orElse(null));
+            System.out.println("Results written to " + file.toAbsolutePath());
+        }
+        System.exit(0);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Start the application against the stand-ins; command-line arguments override application.yml
+     */
+    private static ConfigurableApplicationContext startApplication(Map<String, String> options, SmtpStub smtp,
+                                                                   Path workDir) {
+        List<String> args = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+            "--spring.jpa.hibernate.ddl-auto=create",
+            "--spring.jpa.show-sql=false",
+            "--spring.mail.host=localhost",
+            "--spring.mail.port=" + smtp.getPort(),
+            "--spring.mail.username=",
+            "--spring.mail.password=",
+            "--spring.mail.properties.mail.smtp.auth=false",
+            "--spring.mail.properties.mail.smtp.starttls.enable=false",
+            "--certificate.storage.path=" + workDir.resolve("certificates"),
+            "--certificate.template.path=" + workDir.resolve("templates"),
+            "--certificate.verification.base-url=http://localhost/verify",
+            "--certificate.email.from=loadtest@localhost",
+            "--certificate.email.outbox.rate-per-second=0",
+            "--logging.level.com.certificate=WARN"));
+        options.forEach((key, value) -> {
+            if (key.startsWith("app.")) {
+                args.add("--" + key.substring("app.".length()) + "=" + value);
+            }
+        });
+        return new SpringApplicationBuilder(CertificateGenerationApplication.class).run(args.toArray(new String[0]));
+    }
+
+    private LoadTestReport run() throws Exception {
+        LoadTestReport report = LoadTestReport.builder()
+            .startedAt(LocalDateTime.now().toString())
+            .javaVersion(System.getProperty("java.version"))
+            .availableProcessors(Runtime.getRuntime().availableProcessors())
+            .maxHeapMb(Runtime.getRuntime().maxMemory() / (1024 * 1024))
+            .options(new LinkedHashMap<>(options))
+            .build();
+
+        for (String scenario : options.get("scenarios").split(",")) {
+            report.getScenarios().add(runScenario(scenario.trim()));
+        }
+        return report;
+    }
+
+    private ScenarioResult runScenario(String name) throws Exception {
+        int batchSize = intOption("batch-size");
+        int csvRows = intOption("csv-rows");
+        return switch (name) {
+            case "generate" -> measure(name, 1, true,
+                () -> postJson("/api/certificates", certificateRequest()));
+            case "batch" -> measure(name, batchSize, true,
+                () -> postJson("/api/certificates/batch", Stream.generate(this::certificateRequest)
+                    .limit(batchSize).collect(Collectors.toList())));
+            case "import-csv" -> measure(name, csvRows, true,
+                () -> postCsv("/api/certificates/import/csv", csv(csvRows)));
+            case "verify" -> {
+                ensureIssued();
+                yield measure(name, 1, false, () -> get("/api/certificates/verify/" + randomIssued().certificateId()));
+            }
+            case "download" -> {
+                ensureIssued();
+                yield measure(name, 1, false, () -> get("/api/certificates/" + randomIssued().id() + "/pdf"));
+            }
+            default -> throw new IllegalArgumentException("Unknown scenario " + name);
+        };
+    }
+
+    /**
+     * Warm up, then measure a scenario; collectIssued keeps issued certificates for later read scenarios
+     */
+    private ScenarioResult measure(String name, int certificatesPerRequest, boolean collectIssued,
+                                   Supplier<HttpRequest> nextRequest) throws InterruptedException {
+        System.out.printf("%-12s warm-up %ss, measuring %ss with %d users%n",
+            name, options.get("warmup-seconds"), options.get("duration-seconds"), concurrency);
+        drive(intOption("warmup-seconds"), nextRequest, collectIssued);
+
+        System.gc();
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long emailsBefore = smtp.getMessages();
+        AtomicLong heapPeak = new AtomicLong();
+        ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor();
+        heapSampler.scheduleAtFixedRate(
+            () -> heapPeak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+            0, 50, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        Run run = drive(intOption("duration-seconds"), nextRequest, collectIssued);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        heapSampler.shutdownNow();
+
+        long[] latencies = run.latencies();
+        Arrays.sort(latencies);
+        return ScenarioResult.builder()
+            .name(name)
+            .concurrency(concurrency)
+            .durationSeconds(seconds)
+            .requests(latencies.length)
+            .errors(run.errors())
+            .requestsPerSecond(latencies.length / seconds)
+            .certificatesPerSecond(latencies.length * (double) certificatesPerRequest / seconds)
+            .p50Millis(percentile(latencies, 0.50))
+            .p90Millis(percentile(latencies, 0.90))
+            .p99Millis(percentile(latencies, 0.99))
+            .maxMillis(latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6)
+            .heapPeakMb(heapPeak.get() / (1024 * 1024))
+            .heapAfterMb(memory.getHeapMemoryUsage().getUsed() / (1024 * 1024))
+            .gcCount(gcCount() - gcCountBefore)
+            .gcMillis(gcMillis() - gcMillisBefore)
+            .emailsReceived(smtp.getMessages() - emailsBefore)
+            .build();
+    }
+
+    /**
+     * Run the users until the time is up; latencies (nanoseconds) are kept for successful requests only
+     */
+    private Run drive(int seconds, Supplier<HttpRequest> nextRequest, boolean collectIssued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService users = Executors.newFixedThreadPool(concurrency);
+        List<Latencies> perUser = new ArrayList<>();
+        AtomicLong errors = new AtomicLong();
+
+        for (int i = 0; i < concurrency; i++) {
+            Latencies latencies = new Latencies();
+            perUser.add(latencies);
+            users.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = nextRequest.get();
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                        long elapsed = System.nanoTime() - begin;
+                        if (response.statusCode() / 100 != 2) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        latencies.add(elapsed);
+                        if (collectIssued) {
+                            collectIssued(response.body());
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        users.shutdown();
+        users.awaitTermination(seconds + 120L, TimeUnit.SECONDS);
+
+        long[] all = perUser.stream().flatMapToLong(latencies -> Arrays.stream(latencies.toArray())).toArray();
+        return new Run(all, errors.get());
+    }
+
+    private HttpRequest postJson(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest postCsv(String path, String csv) {
+        String boundary = "loadtest-" + UUID.randomUUID();
+        String body = "--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"recipients.csv\"\r\n"
+            + "Content-Type: text/csv\r\n\r\n"
+            + csv + "\r\n"
+            + "--" + boundary + "--\r\n";
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofMinutes(2))
+            .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+            .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+            .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofMinutes(1))
+            .GET()
+            .build();
+    }
+
+    private Map<String, Object> certificateRequest() {
+        long n = sequence.incrementAndGet();
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("recipientName", "Load Test Recipient " + n);
+        request.put("recipientEmail", "recipient" + (n % 1000) + "@loadtest.local");
+        request.put("courseName", COURSES[(int) (n % COURSES.length)]);
+        request.put("achievementTitle", "Certificate of Completion");
+        request.put("completionDate", LocalDate.of(2024, 3, 15).toString());
+        request.put("issuerName", "Load Test Academy");
+        request.put("instructorName", "Dr. Example");
+        request.put("sendEmail", true);
+        return request;
+    }
+
+    private String csv(int rows) {
+        StringBuilder csv = new StringBuilder("name,email,course,achievement,date,issuer,instructor\n");
+        for (int i = 0; i < rows; i++) {
+            long n = sequence.incrementAndGet();
+            csv.append("Load Test Recipient ").append(n).append(',')
+                .append("recipient").append(n % 1000).append("@loadtest.local,")
+                .append('"').append(COURSES[(int) (n % COURSES.length)]).append('"').append(',')
+                .append("Certificate of Completion,2024-03-15,Load Test Academy,Dr. Example\n");
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Remember certificates from a generate/batch/import response (a single object or an array)
+     */
+    private void collectIssued(String body) {
+        try {
+            JsonNode node = objectMapper.readTree(body);
+            List<JsonNode> certificates = new ArrayList<>();
+            if (node.isArray()) {
+                node.forEach(certificates::add);
+            } else {
+                certificates.add(node);
+            }
+            synchronized (issued) {
+                for (JsonNode certificate : certificates) {
+                    if (issued.size() >= MAX_TRACKED_CERTIFICATES) {
+                        return;
+                    }
+                    if (certificate.hasNonNull("id") && certificate.hasNonNull("certificateId")) {
+                        issued.add(new Issued(certificate.get("id").asLong(), certificate.get("certificateId").asText()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unreadable response: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Read scenarios need certificates; issue a batch if no write scenario ran before
+     */
+    private void ensureIssued() throws IOException, InterruptedException {
+        synchronized (issued) {
+            if (!issued.isEmpty()) {
+                return;
+            }
+        }
+        HttpResponse<String> response = http.send(postJson("/api/certificates/batch",
+            Stream.generate(this::certificateRequest).limit(100).collect(Collectors.toList())),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Seeding certificates failed with HTTP " + response.statusCode());
+        }
+        collectIssued(response.body());
+    }
+
+    private Issued randomIssued() {
+        synchronized (issued) {
+            return issued.get(ThreadLocalRandom.current().nextInt(issued.size()));
+        }
+    }
+
+    private Optional<LoadTestReport> loadPrevious() throws IOException {
+        Path out = Path.of(options.get("out"));
+        if (!Files.isDirectory(out)) {
+            return Optional.empty();
+        }
+        Optional<Path> latest;
+        try (Stream<Path> files = Files.list(out)) {
+            latest = files
+                .filter(file -> file.getFileName().toString().matches("loadtest-\\d{8}-\\d{6}\\.json"))
+                .max(Path::compareTo);
+        }
+        if (latest.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(objectMapper.readValue(latest.get().toFile(), LoadTestReport.class));
+    }
+
+    private Path store(LoadTestReport report) throws IOException {
+        Path out = Files.createDirectories(Path.of(options.get("out")));
+        Path file = out.resolve("loadtest-" + LocalDateTime.now().format(RUN_NAME) + ".json");
+        objectMapper.writeValue(file.toFile(), report);
+        return file;
+    }
+
+    private void printSummary(LoadTestReport report, LoadTestReport previous) {
+        System.out.println();
+        System.out.printf("%-12s %9s %9s %9s %9s %9s %8s %7s %7s %9s%n",
+            "scenario", "req/s", "cert/s", "p50 ms", "p99 ms", "max ms", "errors", "heap MB", "emails", "vs prev");
+        for (ScenarioResult result : report.getScenarios()) {
+            System.out.printf("%-12s %9.1f %9.1f %9.1f %9.1f %9.1f %8d %7d %7d %9s%n",
+                result.getName(), result.getRequestsPerSecond(), result.getCertificatesPerSecond(),
+                result.getP50Millis(), result.getP99Millis(), result.getMaxMillis(), result.getErrors(),
+                result.getHeapPeakMb(), result.getEmailsReceived(), compare(result, previous));
+        }
+        if (previous != null) {
+            System.out.println("vs prev: change in certificates/s against the run of " + previous.getStartedAt());
+        }
+    }
+
+    private static String compare(ScenarioResult result, LoadTestReport previous) {
+        if (previous == null) {
+            return "-";
+        }
+        return previous.getScenarios().stream()
+            .filter(before -> before.getName().equals(result.getName()) && before.getCertificatesPerSecond() > 0)
+            .findFirst()
+            .map(before -> String.format("%+.1f%%",
+                (result.getCertificatesPerSecond() / before.getCertificatesPerSecond() - 1) * 100))
+            .orElse("-");
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(rank, 0)] / 1e6;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+            .mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(count -> count > 0).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+            .mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(time -> time > 0).sum();
+    }
+
+    private int intOption(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private record Issued(long id, String certificateId) {
+    }
+
+    private record Run(long[] latencies, long errors) {
+    }
+
+    /**
+     * Growable array of latencies owned by one user thread
+     */
+    private static final class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.certificate.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Measurements of one load-test scenario (warm-up excluded)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScenarioResult {
+
+    private String name;
+    private int concurrency;
+    private double durationSeconds;
+
+    private long requests;
+    private long errors;
+    private double requestsPerSecond;
+
+    /** Certificates issued or served per second (requests times certificates per request) */
+    private double certificatesPerSecond;
+
+    private double p50Millis;
+    private double p90Millis;
+    private double p99Millis;
+    private double maxMillis;
+
+    private long heapPeakMb;
+    private long heapAfterMb;
+    private long gcCount;
+    private long gcMillis;
+
+    /** Messages the SMTP stub received during the scenario */
+    private long emailsReceived;
+}